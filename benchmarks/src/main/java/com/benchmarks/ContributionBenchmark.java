@@ -0,0 +1,74 @@
+package com.benchmarks;
+
+import com.beans.ContributionRow;
+import com.services.ProjectBudgetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Team contribution rows built from the result set, followed by the
+ * percentage pass: the typed rows getTeamContributionRows returns, against
+ * the map-per-member version they replaced as the baseline.
+ */
+@State(Scope.Thread)
+public class ContributionBenchmark {
+
+    @Param({"25", "250"})
+    public int members;
+
+    private double[] hours;
+    private double totalHours;
+
+    @Setup
+    public void setUp() {
+        hours = new double[members];
+        totalHours = 0;
+        for (int i = 0; i < members; i++) {
+            hours[i] = 10 + (i * 13.5) % 200;
+            totalHours += hours[i];
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> contributionPercentages() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            Map<String, Object> member = new HashMap<>();
+            member.put("userId", "user-" + i);
+            member.put("totalHours", hours[i]);
+            member.put("billableHours", hours[i] * 0.75);
+            member.put("entryCount", i);
+            rows.add(member);
+        }
+        return applyContributionPercentages(rows, totalHours);
+    }
+
+    @Benchmark
+    public List<ContributionRow> contributionShares() {
+        List<ContributionRow> rows = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            rows.add(new ContributionRow("user-" + i, null, hours[i], hours[i] * 0.75, i));
+        }
+        return ProjectBudgetService.applyContributionShares(rows, totalHours);
+    }
+
+    /**
+     * The map-based percentage pass the service used before typed rows.
+     */
+    private static List<Map<String, Object>> applyContributionPercentages(List<Map<String, Object>> members,
+                                                                        double totalProjectHours) {
+        for (Map<String, Object> member : members) {
+            double hours = (double) member.get("totalHours");
+            member.put("contributionPercentage", totalProjectHours > 0 ? (hours / totalProjectHours) * 100 : 0);
+        }
+        return members;
+    }
+}
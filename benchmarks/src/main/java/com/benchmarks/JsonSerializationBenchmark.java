@@ -0,0 +1,61 @@
+package com.benchmarks;
+
+import com.beans.UtilizationRow;
+import com.servlets.JsonSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gson serialization of the List&lt;Map&lt;String, Object&gt;&gt; shape the
+ * report services return, against the typed rows written by the
+ * hand-written adapters, with the API's shared Gson instance.
+ */
+@State(Scope.Thread)
+public class JsonSerializationBenchmark {
+
+    @Param({"50", "1000"})
+    public int rows;
+
+    private List<Map<String, Object>> report;
+    private List<UtilizationRow> typedReport;
+
+    @Setup
+    public void setUp() {
+        report = new ArrayList<>();
+        Date workDate = Date.valueOf("2024-03-04");
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("userId", "user-" + i);
+            row.put("userName", "Employee " + i);
+            row.put("workDate", workDate);
+            row.put("totalHours", 7.5 + i % 3);
+            row.put("billableHours", 6.25);
+            row.put("entryCount", i % 9);
+            row.put("utilizationRate", 83.33333333333333);
+            report.add(row);
+        }
+        typedReport = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            typedReport.add(new UtilizationRow("user-" + i, "Employee " + i, 7.5 + i % 3, 6.25, 9));
+        }
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonSupport.GSON.toJson(report);
+    }
+
+    @Benchmark
+    public String typedToJson() {
+        return JsonSupport.GSON.toJson(typedReport);
+    }
+}
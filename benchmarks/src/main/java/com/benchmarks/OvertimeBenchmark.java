@@ -0,0 +1,58 @@
+package com.benchmarks;
+
+import com.beans.PayrollLine;
+import com.services.OvertimeCalculationService;
+import com.services.PayrollEngine;
+import com.services.RateTableService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Date;
+
+/**
+ * Daily overtime split and the payroll engine's daily/weekly overtime pass
+ * for a month of working days.
+ */
+@State(Scope.Thread)
+public class OvertimeBenchmark {
+
+    private static final int DAYS = 31;
+
+    private Date[] dates;
+    private double[] hours;
+    private int[] epochDays;
+    private PayrollLine line;
+    private RateTableService.Rates rates;
+
+    @Setup
+    public void setUp() {
+        dates = new Date[DAYS];
+        hours = new double[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            dates[i] = Date.valueOf(String.format("2024-03-%02d", i + 1));
+            hours[i] = 6 + (i % 5) * 1.25;
+        }
+        epochDays = new int[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            epochDays[i] = (int) dates[i].toLocalDate().toEpochDay();
+        }
+        line = new PayrollLine("user-1", "Employee 1", null);
+        rates = RateTableService.Rates.flat(25.0);
+    }
+
+    @Benchmark
+    public void splitDailyOvertime(Blackhole bh) {
+        for (int i = 0; i < DAYS; i++) {
+            bh.consume(OvertimeCalculationService.splitDailyOvertime(dates[i], hours[i]));
+        }
+    }
+
+    @Benchmark
+    public PayrollLine computePay() {
+        PayrollEngine.computePay(line, epochDays, hours, DAYS, rates);
+        return line;
+    }
+}
@@ -0,0 +1,101 @@
+package com.benchmarks;
+
+import com.beans.PayrollLine;
+import com.services.CsvRowWriter;
+import com.services.PayrollExportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Payroll CSV row assembly into a writer that discards its input, so the
+ * numbers cover formatting rather than I/O.
+ */
+@State(Scope.Thread)
+public class PayrollCsvBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    private String[] ids;
+    private String[] names;
+    private double[] hours;
+    private PayrollLine[] lines;
+    private Writer sink;
+    private CsvRowWriter csv;
+
+    @Setup
+    public void setUp() {
+        ids = new String[rows];
+        names = new String[rows];
+        hours = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = "user-" + i;
+            names[i] = i % 10 == 0 ? "O\"Brien, Pat " + i : "Employee " + i;
+            hours[i] = 120 + (i * 7.25) % 80;
+        }
+        lines = new PayrollLine[rows];
+        for (int i = 0; i < rows; i++) {
+            double total = hours[i];
+            lines[i] = new PayrollLine(ids[i], names[i], null);
+            lines[i].setTotalHours(total);
+            lines[i].setRegularHours(Math.min(total, 160.0));
+            lines[i].setWeeklyOvertimeHours(Math.max(0, total - 160.0));
+            lines[i].setBillableHours(total * 0.8);
+            lines[i].setRegularPay(lines[i].getRegularHours() * 25.0);
+            lines[i].setOvertimePay(lines[i].getOvertimeHours() * 25.0 * 1.5);
+        }
+        sink = new NullWriter();
+        csv = new CsvRowWriter(sink);
+    }
+
+    @Benchmark
+    public void writePayrollRows() throws IOException {
+        for (int i = 0; i < rows; i++) {
+            PayrollExportService.writePayrollRow(csv, lines[i], "2024-03-01", "2024-03-31");
+        }
+    }
+
+    /**
+     * Baseline: the String.format row the export used before CsvRowWriter.
+     */
+    @Benchmark
+    public void formatPayrollRows() throws IOException {
+        for (int i = 0; i < rows; i++) {
+            double total = hours[i];
+            double regular = Math.min(total, 160.0);
+            double overtime = Math.max(0, total - 160.0);
+            double gross = regular * 25.0 + overtime * 25.0 * 1.5;
+            sink.write(String.format("%s,\"%s\",%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%s,%s\n", ids[i], names[i],
+                    regular, overtime, total, total * 0.8, total * 0.2, gross, "2024-03-01", "2024-03-31"));
+        }
+    }
+
+    static final class NullWriter extends Writer {
+
+        @Override
+        public void write(int c) {
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void write(String value) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
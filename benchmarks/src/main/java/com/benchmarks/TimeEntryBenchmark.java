@@ -0,0 +1,35 @@
+package com.benchmarks;
+
+import com.beans.TimeEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.Timestamp;
+
+@State(Scope.Thread)
+public class TimeEntryBenchmark {
+
+    private TimeEntry entry;
+    private TimeEntry openEntry;
+
+    @Setup
+    public void setUp() {
+        long start = Timestamp.valueOf("2024-03-04 08:30:00").getTime();
+        entry = new TimeEntry(1, "u1", 1, new Timestamp(start), new Timestamp(start + 8_400_000L),
+                0, true, "Sprint work", "REGULAR", new Timestamp(start));
+        openEntry = new TimeEntry(2, "u1", 1, new Timestamp(start), null,
+                2.5, true, "Sprint work", "REGULAR", new Timestamp(start));
+    }
+
+    @Benchmark
+    public double calculateDuration() {
+        return entry.calculateDuration();
+    }
+
+    @Benchmark
+    public double calculateDurationWithoutEnd() {
+        return openEntry.calculateDuration();
+    }
+}
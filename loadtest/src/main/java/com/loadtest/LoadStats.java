@@ -0,0 +1,59 @@
+package com.loadtest;
+
+import com.db.LatencyHistogram;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per action latency histograms and error counts. Samples taken before
+ * startMeasuring() (the warmup) are dropped.
+ */
+class LoadStats {
+
+    private final Map<String, LatencyHistogram> latencies = new HashMap<>();
+    private final Map<String, LongAdder> errors = new HashMap<>();
+    private volatile boolean measuring;
+    private volatile long startedAt;
+    private volatile long stoppedAt;
+
+    LoadStats(String[] actions) {
+        for (String action : actions) {
+            latencies.put(action, new LatencyHistogram());
+            errors.put(action, new LongAdder());
+        }
+    }
+
+    void startMeasuring() {
+        startedAt = System.currentTimeMillis();
+        measuring = true;
+    }
+
+    void stopMeasuring() {
+        measuring = false;
+        stoppedAt = System.currentTimeMillis();
+    }
+
+    void record(String action, long micros, boolean failed) {
+        if (!measuring) {
+            return;
+        }
+        latencies.get(action).record(micros);
+        if (failed) {
+            errors.get(action).increment();
+        }
+    }
+
+    LatencyHistogram latency(String action) {
+        return latencies.get(action);
+    }
+
+    long errors(String action) {
+        return errors.get(action).sum();
+    }
+
+    long getMeasuredMillis() {
+        return Math.max(1, stoppedAt - startedAt);
+    }
+}
@@ -0,0 +1,270 @@
+package com.loadtest;
+
+import com.db.Dbfactory;
+import com.db.LatencyHistogram;
+import com.db.PoolStats;
+import com.servlets.AppContextListener;
+import com.servlets.MainServlet;
+import com.servlets.MetricsServlet;
+import com.servlets.ReportApiServlet;
+import org.apache.jasper.servlet.JasperInitializer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the webapp in embedded Jetty against an in-memory H2 database in MySQL
+ * mode, seeds users and work hours, and runs virtual users through the
+ * MainServlet actions for a fixed time. Prints throughput and latency
+ * percentiles per action at the end.
+ *
+ * Options (all name=value): users, duration, warmup (seconds), think (ms
+ * between requests), seedUsers, seedHours (work_hours rows per user),
+ * scenario (comma separated actions from login,enter,exit,view,loadUsers),
+ * webapp (directory holding the JSPs), port (0 picks a free one).
+ */
+public class LoadTestHarness {
+
+    static final String[] ACTIONS = {"login", "enter", "exit", "view", "loadUsers"};
+
+    private static final String H2_URL = "jdbc:h2:mem:reporting_system;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) throws Exception {
+        // before the first Logger is created, so the webapp's DEBUG config is not picked up
+        System.setProperty("log4j.configuration", "loadtest-log4j.properties");
+
+        Map<String, String> options = parseOptions(args);
+        int users = intOption(options, "users", 20);
+        int durationSeconds = intOption(options, "duration", 30);
+        int warmupSeconds = intOption(options, "warmup", 5);
+        int thinkMillis = intOption(options, "think", 0);
+        int seedUsers = Math.max(users, intOption(options, "seedUsers", 200));
+        int seedHours = intOption(options, "seedHours", 100);
+        int port = intOption(options, "port", 0);
+        List<String> scenario = Arrays.asList(
+                options.getOrDefault("scenario", "login,enter,view,exit,loadUsers").split(","));
+        String webapp = options.getOrDefault("webapp", "../src/main/webapp");
+        for (String action : scenario) {
+            if (!Arrays.asList(ACTIONS).contains(action)) {
+                throw new IllegalArgumentException("Unknown action " + action + ", expected one of "
+                        + Arrays.toString(ACTIONS));
+            }
+        }
+
+        configureDatabase();
+        loadSchema();
+        seed(seedUsers, seedHours);
+
+        // MainServlet prints the whole user list on every loadUsers; keep the console for the report
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Server server = startServer(port, webapp);
+        int actualPort = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+        String baseUrl = "http://127.0.0.1:" + actualPort + "/mainServlet";
+        console.println("Webapp on " + baseUrl + ", " + users + " virtual users, scenario " + scenario
+                + ", warmup " + warmupSeconds + "s, measuring " + durationSeconds + "s");
+
+        LoadStats stats = new LoadStats(ACTIONS);
+        List<VirtualUser> virtualUsers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        for (int i = 0; i < users; i++) {
+            VirtualUser vu = new VirtualUser(baseUrl, email(i), password(i), scenario, thinkMillis, stats);
+            virtualUsers.add(vu);
+            executor.execute(vu);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+        stats.startMeasuring();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        stats.stopMeasuring();
+
+        for (VirtualUser vu : virtualUsers) {
+            vu.stop();
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        report(stats, console);
+        server.stop();
+        Dbfactory.shutdown();
+    }
+
+    private static void configureDatabase() {
+        // Dbfactory lets -D system properties override db.properties
+        System.setProperty("db.driver", "org.h2.Driver");
+        System.setProperty("db.url", H2_URL);
+        System.setProperty("db.username", "sa");
+        System.setProperty("db.password", "");
+        System.setProperty("db.migrate.onStartup", "false");
+        // the seeded schema has no projects table
+        System.setProperty("budget.alerts.enabled", "false");
+    }
+
+    private static void loadSchema() throws IOException, SQLException {
+        StringBuilder script = new StringBuilder();
+        try (InputStream in = LoadTestHarness.class.getResourceAsStream("/loadtest-schema.sql")) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().startsWith("--")) {
+                    script.append(line).append('\n');
+                }
+            }
+        }
+        try (Connection con = DriverManager.getConnection(H2_URL, "sa", "");
+             Statement st = con.createStatement()) {
+            for (String sql : script.toString().split(";")) {
+                if (!sql.trim().isEmpty()) {
+                    st.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static void seed(int userCount, int hoursPerUser) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Connection con = DriverManager.getConnection(H2_URL, "sa", "")) {
+            con.setAutoCommit(false);
+            try (PreparedStatement users = con.prepareStatement(
+                    "INSERT INTO reporting_system.users (id, fullname, password, email) VALUES (?, ?, ?, ?)");
+                 PreparedStatement hours = con.prepareStatement(
+                         "INSERT INTO reporting_system.work_hours (enter, `exit`, user) VALUES (?, ?, ?)")) {
+                long day = TimeUnit.DAYS.toMillis(1);
+                long firstDay = start - hoursPerUser * day;
+                for (int i = 0; i < userCount; i++) {
+                    users.setString(1, String.valueOf(100000 + i));
+                    users.setString(2, fullName(i));
+                    users.setString(3, password(i));
+                    users.setString(4, email(i));
+                    users.addBatch();
+                    for (int d = 0; d < hoursPerUser; d++) {
+                        long enter = firstDay + d * day + TimeUnit.HOURS.toMillis(8);
+                        hours.setTimestamp(1, new Timestamp(enter));
+                        hours.setTimestamp(2, new Timestamp(enter + TimeUnit.HOURS.toMillis(9)));
+                        hours.setString(3, fullName(i));
+                        hours.addBatch();
+                    }
+                    hours.executeBatch();
+                }
+                users.executeBatch();
+            }
+            con.commit();
+        }
+        System.out.println("Seeded " + userCount + " users and " + (long) userCount * hoursPerUser
+                + " work_hours rows in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static Server startServer(int port, String webapp) throws Exception {
+        File webappDir = new File(webapp);
+        if (!new File(webappDir, "login.jsp").isFile()) {
+            throw new IllegalArgumentException("No webapp at " + webappDir.getAbsolutePath() + ", pass webapp=");
+        }
+        QueuedThreadPool threads = new QueuedThreadPool(200, 8);
+        threads.setName("loadtest-http");
+        Server server = new Server(threads);
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost("127.0.0.1");
+        connector.setPort(port);
+        server.addConnector(connector);
+
+        WebAppContext context = new WebAppContext();
+        context.setContextPath("/");
+        context.setResourceBase(webappDir.getAbsolutePath());
+        // servlets and services come from this JVM's classpath rather than WEB-INF
+        context.setParentLoaderPriority(true);
+        context.setTempDirectory(Files.createTempDirectory("loadtest-jsp").toFile());
+        context.setAttribute("org.eclipse.jetty.server.webapp.ContainerIncludeJarPattern", ".*/jstl-[^/]*\\.jar$");
+        context.addServletContainerInitializer(new JasperInitializer());
+        context.addEventListener(new AppContextListener());
+        context.addServlet(MainServlet.class, "/mainServlet").setAsyncSupported(true);
+        context.addServlet(ReportApiServlet.class, "/api/*").setAsyncSupported(true);
+        context.addServlet(MetricsServlet.class, "/metrics");
+        server.setHandler(context);
+        server.start();
+        return server;
+    }
+
+    private static void report(LoadStats stats, PrintStream out) {
+        double seconds = stats.getMeasuredMillis() / 1000.0;
+        out.println();
+        out.printf("%-10s %9s %7s %9s %9s %9s %9s %9s%n",
+                "action", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        long total = 0;
+        for (String action : ACTIONS) {
+            LatencyHistogram latency = stats.latency(action);
+            long count = latency.getCount();
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", action, count, stats.errors(action),
+                    count / seconds, millis(latency.percentileMicros(0.5)), millis(latency.percentileMicros(0.95)),
+                    millis(latency.percentileMicros(0.99)), millis(latency.getMaxMicros()));
+        }
+        out.printf("%-10s %9d %7s %9.1f%n", "total", total, "", total / seconds);
+
+        PoolStats pool = Dbfactory.getPoolStats();
+        out.println("Connection pool: max " + pool.getMaxSize() + ", borrows " + pool.getBorrowCount()
+                + ", timeouts " + pool.getTimeoutCount() + ", waiting " + pool.getWaitingThreads());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    static String fullName(int i) {
+        return "Load User " + i;
+    }
+
+    static String email(int i) {
+        return "user" + i + "@loadtest.local";
+    }
+
+    static String password(int i) {
+        return "pw" + i;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
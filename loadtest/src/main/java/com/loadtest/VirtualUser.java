@@ -0,0 +1,101 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One simulated employee with its own cookie jar, so each keeps a session the
+ * way a browser would. Logs in once, then loops over the scenario's actions
+ * until stopped.
+ */
+class VirtualUser implements Runnable {
+
+    private final String baseUrl;
+    private final String email;
+    private final String password;
+    private final List<String> scenario;
+    private final int thinkMillis;
+    private final LoadStats stats;
+    private final HttpClient client;
+    private volatile boolean running = true;
+
+    VirtualUser(String baseUrl, String email, String password, List<String> scenario, int thinkMillis,
+                LoadStats stats) {
+        this.baseUrl = baseUrl;
+        this.email = email;
+        this.password = password;
+        this.scenario = scenario;
+        this.thinkMillis = thinkMillis;
+        this.stats = stats;
+        this.client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        execute("login");
+        while (running) {
+            for (String action : scenario) {
+                if (!running) {
+                    return;
+                }
+                execute(action);
+                if (thinkMillis > 0) {
+                    try {
+                        Thread.sleep(thinkMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void execute(String action) {
+        long start = System.nanoTime();
+        boolean failed;
+        try {
+            HttpResponse<String> response = client.send(request(action), HttpResponse.BodyHandlers.ofString());
+            failed = response.statusCode() >= 400
+                    || ("login".equals(action) && response.body().contains("Invalid email/password"));
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return;
+        }
+        stats.record(action, (System.nanoTime() - start) / 1000, failed);
+    }
+
+    private HttpRequest request(String action) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+        if ("login".equals(action)) {
+            String form = "act=login&email=" + encode(email) + "&password=" + encode(password);
+            return builder.uri(URI.create(baseUrl))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build();
+        }
+        return builder.uri(URI.create(baseUrl + "?act=" + action)).GET().build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,498 @@
+package com.loadtest;
+
+import com.db.Dbfactory;
+import com.services.CsvRowWriter;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic data for capacity tests: users, projects,
+ * time_entries, leave_requests and timesheet_approvals. The same seed and
+ * options always produce the same rows; every user draws from its own random
+ * stream derived from the seed, so changing the user count does not reshuffle
+ * the users that were already there.
+ *
+ * Rows go either straight into the database through JDBC batches or into CSV
+ * files plus a load.sql of LOAD DATA statements for the mysql client. The
+ * JDBC path numbers users and projects after the highest ids already in the
+ * database, so it can add to a schema that has data; the files always start
+ * at user 100000 and project 1 and are meant for an empty schema.
+ *
+ * Command line, all arguments name=value:
+ *   seed=42 users=5000 projects=250 years=3 endDate=2024-12-31
+ *   out=jdbc (default) or out=/path/to/dir   batchSize=5000
+ */
+public class WorkloadGenerator {
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static final String[] DEPARTMENTS = {"Engineering", "Consulting", "Design", "Sales", "Support", "Finance"};
+    private static final double[] DEPARTMENT_WEIGHTS = {0.40, 0.25, 0.10, 0.10, 0.10, 0.05};
+    private static final String[] FIRST_NAMES = {"Noa", "Daniel", "Maya", "Yossi", "Tamar", "Omer", "Shira", "Eitan",
+            "Michal", "Amit", "Liat", "Ron", "Dana", "Guy", "Yael", "Itai"};
+    private static final String[] LAST_NAMES = {"Cohen", "Levi", "Mizrahi", "Peretz", "Biton", "Friedman", "Azulay",
+            "Katz", "Shapiro", "Ben-David", "Avraham", "Golan"};
+    private static final String[] TASKS = {"Development", "Code review", "Client meeting", "Design work", "Testing",
+            "Documentation", "Planning", "Support ticket", "Deployment", "Research"};
+    private static final String[] CLIENTS = {"Acme", "Globex", "Initech", "Umbrella", "Hooli", "Stark", "Wayne",
+            "Wonka", null};
+
+    private static final int MANAGER_SPAN = 25;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public enum Table {
+        USERS("users", "id", "fullname", "password", "email", "department"),
+        PROJECTS("projects", "project_id", "project_name", "client_name", "description", "hourly_rate",
+                "budget_hours", "status", "project_manager"),
+        TIME_ENTRIES("time_entries", "user_id", "project_id", "start_time", "end_time", "hours_worked",
+                "is_billable", "description", "entry_type", "created_at"),
+        LEAVE_REQUESTS("leave_requests", "user_id", "leave_type", "start_date", "end_date", "total_days", "status",
+                "reason", "approver_id", "approver_comments", "requested_at", "reviewed_at"),
+        TIMESHEET_APPROVALS("timesheet_approvals", "user_id", "approver_id", "week_start_date", "week_end_date",
+                "status", "approver_comments", "submitted_at", "reviewed_at", "total_hours", "billable_hours",
+                "non_billable_hours");
+
+        final String tableName;
+        final String[] columns;
+
+        Table(String tableName, String... columns) {
+            this.tableName = tableName;
+            this.columns = columns;
+        }
+
+        String insertSql() {
+            StringBuilder sql = new StringBuilder("INSERT INTO reporting_system.").append(tableName).append(" (");
+            StringBuilder params = new StringBuilder();
+            for (int i = 0; i < columns.length; i++) {
+                sql.append(i == 0 ? "" : ", ").append(columns[i]);
+                params.append(i == 0 ? "?" : ", ?");
+            }
+            return sql.append(") VALUES (").append(params).append(")").toString();
+        }
+    }
+
+    interface Sink extends AutoCloseable {
+        void row(Table table, Object... values) throws Exception;
+
+        @Override
+        void close() throws Exception;
+    }
+
+    private final long seed;
+    private final int userCount;
+    private final int projectCount;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Map<Table, Long> counts = new EnumMap<>(Table.class);
+    private int firstUserId = 100000;
+    private int projectIdOffset = 0;
+
+    public WorkloadGenerator(long seed, int userCount, int projectCount, int years, LocalDate endDate) {
+        this.seed = seed;
+        this.userCount = userCount;
+        this.projectCount = projectCount;
+        this.endDate = endDate;
+        this.startDate = endDate.minusYears(years).plusDays(1);
+    }
+
+    public Map<Table, Long> generateToDatabase(int batchSize) throws Exception {
+        try (JdbcSink sink = new JdbcSink(batchSize)) {
+            startAfterExistingRows(sink.con);
+            generate(sink);
+        }
+        return counts;
+    }
+
+    public Map<Table, Long> generateToFiles(File directory) throws Exception {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        try (FileSink sink = new FileSink(directory)) {
+            generate(sink);
+        }
+        return counts;
+    }
+
+    /**
+     * Moves the generated ids past the users and projects already present so
+     * the inserts do not collide with them.
+     */
+    private void startAfterExistingRows(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT COALESCE(MAX(CAST(id AS UNSIGNED)), 0) FROM reporting_system.users");
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                firstUserId = (int) Math.max(firstUserId, rs.getLong(1) + 1);
+            }
+        }
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT COALESCE(MAX(project_id), 0) FROM reporting_system.projects");
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                projectIdOffset = rs.getInt(1);
+            }
+        }
+        logger.info("WorkloadGenerator users from " + firstUserId + ", projects from " + (projectIdOffset + 1));
+    }
+
+    void generate(Sink sink) throws Exception {
+        logger.info("WorkloadGenerator.generate entering... seed=" + seed + " users=" + userCount
+                + " projects=" + projectCount + " " + startDate + " to " + endDate);
+        long started = System.currentTimeMillis();
+        double[] projectRates = new double[projectCount + 1];
+        double[] projectBillable = new double[projectCount + 1];
+        SplittableRandom projectRandom = new SplittableRandom(seed);
+        for (int p = 1; p <= projectCount; p++) {
+            projectRates[p] = 50 + projectRandom.nextInt(31) * 5;
+            projectBillable[p] = projectRandom.nextDouble() < 0.15 ? 0.0 : 0.6 + projectRandom.nextDouble() * 0.4;
+            String client = CLIENTS[projectRandom.nextInt(CLIENTS.length)];
+            emit(sink, Table.PROJECTS, projectIdOffset + p, "Project " + (projectIdOffset + p), client,
+                    projectBillable[p] == 0 ? "Internal initiative " + p : "Client engagement " + p,
+                    projectRates[p], (double) (200 + projectRandom.nextInt(40) * 100),
+                    projectRandom.nextDouble() < 0.85 ? "ACTIVE" : "COMPLETED",
+                    userId(projectRandom.nextInt(userCount) / MANAGER_SPAN * MANAGER_SPAN));
+        }
+
+        for (int u = 0; u < userCount; u++) {
+            generateUser(sink, u, projectBillable);
+            if ((u + 1) % 500 == 0) {
+                logger.info("WorkloadGenerator " + (u + 1) + "/" + userCount + " users, "
+                        + counts.getOrDefault(Table.TIME_ENTRIES, 0L) + " time entries, "
+                        + (System.currentTimeMillis() - started) / 1000 + " s");
+            }
+        }
+        logger.info("WorkloadGenerator.generate done in " + (System.currentTimeMillis() - started) + " ms: " + counts);
+    }
+
+    private void generateUser(Sink sink, int u, double[] projectBillable) throws Exception {
+        // golden ratio increment keeps neighbouring users' streams unrelated
+        SplittableRandom random = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (u + 1)));
+        String id = userId(u);
+        String approver = userId(u / MANAGER_SPAN * MANAGER_SPAN == u ? 0 : u / MANAGER_SPAN * MANAGER_SPAN);
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + u;
+        emit(sink, Table.USERS, id, name, "pw" + u, "user" + id + "@example.com", pickDepartment(random));
+
+        // most people log a normal day, some are part time and some habitually run over
+        double profile = random.nextDouble();
+        double meanHours = profile < 0.10 ? 4.5 : profile < 0.25 ? 9.0 : 7.5 + random.nextDouble();
+        boolean worksWeekends = profile >= 0.10 && profile < 0.25 && random.nextDouble() < 0.3;
+        int[] projects = new int[1 + random.nextInt(4)];
+        for (int i = 0; i < projects.length; i++) {
+            projects[i] = pickProject(random);
+        }
+
+        int days = (int) (endDate.toEpochDay() - startDate.toEpochDay()) + 1;
+        BitSet onLeave = generateLeave(sink, random, id, approver, days);
+
+        double weekTotal = 0;
+        double weekBillable = 0;
+        LocalDate weekStart = startDate.with(DayOfWeek.MONDAY);
+        for (int d = 0; d < days; d++) {
+            LocalDate day = startDate.plusDays(d);
+            if (day.getDayOfWeek() == DayOfWeek.MONDAY && d > 0) {
+                emitApproval(sink, random, id, approver, weekStart, weekTotal, weekBillable);
+                weekStart = day;
+                weekTotal = 0;
+                weekBillable = 0;
+            }
+            boolean weekend = day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+            if (onLeave.get(d) || (weekend && !(worksWeekends && random.nextDouble() < 0.15))
+                    || random.nextDouble() < 0.03) {
+                continue;
+            }
+            double dayHours = quarter(clamp(meanHours + gaussian(random) * (weekend ? 0.8 : 1.1), 0.5, 13.0)
+                    * (weekend ? 0.5 : 1.0));
+            int entries = Math.min(projects.length, dayHours < 3 ? 1 : 1 + random.nextInt(3));
+            LocalDateTime start = day.atTime(8, 0).plusMinutes(random.nextInt(9) * 15);
+            double remaining = dayHours;
+            for (int e = 0; e < entries; e++) {
+                double hours = e == entries - 1 ? remaining
+                        : quarter(Math.max(0.25, remaining * (0.3 + random.nextDouble() * 0.4)));
+                remaining -= hours;
+                int project = projects[(e + random.nextInt(projects.length)) % projects.length];
+                boolean billable = random.nextDouble() < projectBillable[project];
+                LocalDateTime end = start.plusMinutes(Math.round(hours * 60));
+                emit(sink, Table.TIME_ENTRIES, id, projectIdOffset + project, start, end, hours, billable,
+                        TASKS[random.nextInt(TASKS.length)], weekend ? "OVERTIME" : "REGULAR", end);
+                weekTotal += hours;
+                weekBillable += billable ? hours : 0;
+                start = end.plusMinutes(random.nextInt(3) * 15);
+            }
+        }
+        emitApproval(sink, random, id, approver, weekStart, weekTotal, weekBillable);
+    }
+
+    /**
+     * A few vacations, sick days and personal days a year. Only approved
+     * leave keeps the user from logging time that day.
+     */
+    private BitSet generateLeave(Sink sink, SplittableRandom random, String id, String approver, int days)
+            throws Exception {
+        BitSet onLeave = new BitSet(days);
+        int years = Math.max(1, days / 365);
+        int requests = years * (2 + random.nextInt(4)) + random.nextInt(3 * years + 1);
+        for (int r = 0; r < requests; r++) {
+            double kind = random.nextDouble();
+            String type = kind < 0.55 ? "VACATION" : kind < 0.85 ? "SICK" : "PERSONAL";
+            int length = "VACATION".equals(type) ? 1 + random.nextInt(10) : "SICK".equals(type) ? 1 + random.nextInt(2) : 1;
+            int first = random.nextInt(days);
+            int last = Math.min(days - 1, first + length - 1);
+            if (onLeave.get(first, last + 1).cardinality() > 0) {
+                continue;
+            }
+            LocalDate from = startDate.plusDays(first);
+            LocalDate to = startDate.plusDays(last);
+            int workdays = 0;
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                    workdays++;
+                }
+            }
+            if (workdays == 0) {
+                continue;
+            }
+            boolean recent = days - first < 45;
+            double outcome = random.nextDouble();
+            String status = recent && outcome < 0.5 ? "PENDING" : outcome < 0.93 ? "APPROVED" : "REJECTED";
+            LocalDateTime requestedAt = from.atTime(9, 0).minusDays("SICK".equals(type) ? 0 : 7 + random.nextInt(24));
+            LocalDateTime reviewedAt = "PENDING".equals(status) ? null : requestedAt.plusHours(2 + random.nextInt(70));
+            emit(sink, Table.LEAVE_REQUESTS, id, type, from.atStartOfDay(), to.atStartOfDay(), (double) workdays,
+                    status, "SICK".equals(type) ? "Not feeling well" : "Time off", "PENDING".equals(status) ? null : approver,
+                    "REJECTED".equals(status) ? "Team is short that week" : null, requestedAt, reviewedAt);
+            if ("APPROVED".equals(status)) {
+                onLeave.set(first, last + 1);
+            }
+        }
+        return onLeave;
+    }
+
+    private void emitApproval(Sink sink, SplittableRandom random, String id, String approver, LocalDate weekStart,
+                              double total, double billable) throws Exception {
+        if (total <= 0) {
+            return;
+        }
+        LocalDate weekEnd = weekStart.plusDays(6);
+        boolean recent = endDate.toEpochDay() - weekEnd.toEpochDay() < 14;
+        double outcome = random.nextDouble();
+        String status = recent || outcome < 0.05 ? "PENDING" : outcome < 0.97 ? "APPROVED" : "REJECTED";
+        LocalDateTime submittedAt = weekEnd.atTime(16, 0).minusDays(random.nextInt(3));
+        LocalDateTime reviewedAt = "PENDING".equals(status) ? null : submittedAt.plusHours(4 + random.nextInt(90));
+        emit(sink, Table.TIMESHEET_APPROVALS, id, approver, weekStart.atStartOfDay(), weekEnd.atStartOfDay(), status,
+                "REJECTED".equals(status) ? "Please split the hours by project" : null, submittedAt, reviewedAt,
+                round2(total), round2(billable), round2(total - billable));
+    }
+
+    private void emit(Sink sink, Table table, Object... values) throws Exception {
+        sink.row(table, values);
+        counts.merge(table, 1L, Long::sum);
+    }
+
+    private String userId(int u) {
+        return String.valueOf(firstUserId + u);
+    }
+
+    private static String pickDepartment(SplittableRandom random) {
+        double r = random.nextDouble();
+        for (int i = 0; i < DEPARTMENTS.length; i++) {
+            r -= DEPARTMENT_WEIGHTS[i];
+            if (r < 0) {
+                return DEPARTMENTS[i];
+            }
+        }
+        return DEPARTMENTS[0];
+    }
+
+    /**
+     * Skewed towards low project ids, so a few large projects collect most of
+     * the hours and a long tail of small ones the rest.
+     */
+    private int pickProject(SplittableRandom random) {
+        double r = random.nextDouble();
+        return 1 + (int) (projectCount * r * r * r);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double quarter(double hours) {
+        return Math.max(0.25, Math.round(hours * 4) / 4.0);
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * One prepared statement per table on a single connection, committing
+     * whenever a table's batch fills. Relies on rewriteBatchedStatements for
+     * multi-row inserts.
+     */
+    static final class JdbcSink implements Sink {
+
+        private final Connection con;
+        private final int batchSize;
+        private final Map<Table, PreparedStatement> statements = new EnumMap<>(Table.class);
+        private final Map<Table, Integer> pending = new HashMap<>();
+
+        JdbcSink(int batchSize) throws SQLException {
+            this.con = Dbfactory.getConnection();
+            if (con == null) {
+                throw new SQLException("No connection available for data generation");
+            }
+            this.batchSize = batchSize;
+            con.setAutoCommit(false);
+        }
+
+        @Override
+        public void row(Table table, Object... values) throws SQLException {
+            PreparedStatement ps = statements.get(table);
+            if (ps == null) {
+                ps = con.prepareStatement(table.insertSql());
+                statements.put(table, ps);
+            }
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value instanceof LocalDateTime) {
+                    value = Timestamp.valueOf((LocalDateTime) value);
+                }
+                ps.setObject(i + 1, value);
+            }
+            ps.addBatch();
+            int size = pending.merge(table, 1, Integer::sum);
+            if (size >= batchSize) {
+                ps.executeBatch();
+                con.commit();
+                pending.put(table, 0);
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                for (Map.Entry<Table, PreparedStatement> entry : statements.entrySet()) {
+                    if (pending.getOrDefault(entry.getKey(), 0) > 0) {
+                        entry.getValue().executeBatch();
+                    }
+                }
+                con.commit();
+            } finally {
+                for (PreparedStatement ps : statements.values()) {
+                    ps.close();
+                }
+                con.close();
+            }
+        }
+    }
+
+    /**
+     * One CSV per table in LOAD DATA's default escaping (\N for NULL) and a
+     * load.sql that loads them with the mysql client's LOCAL INFILE.
+     */
+    static final class FileSink implements Sink {
+
+        private final File directory;
+        private final Map<Table, Writer> writers = new EnumMap<>(Table.class);
+        private final Map<Table, CsvRowWriter> rows = new EnumMap<>(Table.class);
+
+        FileSink(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public void row(Table table, Object... values) throws IOException {
+            CsvRowWriter csv = rows.get(table);
+            if (csv == null) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(new File(directory, table.tableName + ".csv")), StandardCharsets.UTF_8),
+                        256 * 1024);
+                writers.put(table, writer);
+                csv = new CsvRowWriter(writer);
+                rows.put(table, csv);
+            }
+            for (Object value : values) {
+                if (value == null) {
+                    csv.field("\\N");
+                } else if (value instanceof String) {
+                    csv.quoted((String) value);
+                } else if (value instanceof Double) {
+                    csv.decimal2((Double) value);
+                } else if (value instanceof Boolean) {
+                    csv.field((Boolean) value ? "1" : "0");
+                } else if (value instanceof LocalDateTime) {
+                    csv.field(TIMESTAMP_FORMAT.format((LocalDateTime) value));
+                } else {
+                    csv.field(value.toString());
+                }
+            }
+            csv.endRow();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Writer writer : writers.values()) {
+                writer.close();
+            }
+            try (Writer script = new OutputStreamWriter(
+                    new FileOutputStream(new File(directory, "load.sql")), StandardCharsets.UTF_8)) {
+                script.write("-- mysql --local-infile=1 reporting_system < load.sql, from this directory\n");
+                for (Table table : writers.keySet()) {
+                    script.write("LOAD DATA LOCAL INFILE '" + table.tableName + ".csv' INTO TABLE " + table.tableName
+                            + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"'"
+                            + " LINES TERMINATED BY '\\n' (" + String.join(", ", table.columns) + ");\n");
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        WorkloadGenerator generator = new WorkloadGenerator(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Integer.parseInt(options.getOrDefault("users", "5000")),
+                Integer.parseInt(options.getOrDefault("projects", "250")),
+                Integer.parseInt(options.getOrDefault("years", "3")),
+                LocalDate.parse(options.getOrDefault("endDate", "2024-12-31")));
+        String out = options.getOrDefault("out", "jdbc");
+        Map<Table, Long> written = "jdbc".equals(out)
+                ? generator.generateToDatabase(Integer.parseInt(options.getOrDefault("batchSize", "5000")))
+                : generator.generateToFiles(new File(out));
+        System.out.println("Generated " + written);
+        Dbfactory.shutdown();
+    }
+}
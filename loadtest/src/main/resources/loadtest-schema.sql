@@ -0,0 +1,21 @@
+-- Tables MainServlet touches, in the subset of MySQL syntax H2's MySQL mode
+-- accepts. The production migrations use triggers H2 cannot run.
+
+CREATE SCHEMA IF NOT EXISTS reporting_system;
+
+CREATE TABLE IF NOT EXISTS reporting_system.users (
+  `id` varchar(100) NOT NULL PRIMARY KEY,
+  `fullname` varchar(4000) DEFAULT NULL,
+  `password` varchar(4000) DEFAULT NULL,
+  `email` varchar(4000) DEFAULT NULL,
+  `department` varchar(100) DEFAULT NULL
+);
+
+CREATE TABLE IF NOT EXISTS reporting_system.work_hours (
+  `id` INT NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  `enter` timestamp NULL DEFAULT NULL,
+  `exit` timestamp NULL DEFAULT NULL,
+  `user` varchar(45) DEFAULT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_work_hours_user_id ON reporting_system.work_hours (`user`, `id`);
@@ -18,16 +18,13 @@ public class LoginDao {
     public User validateLogin(User user){
         logger.info("LoginDao.validateLogin entering ...");
         User user1 = null;
-        try{
-            Connection con= Dbfactory.getConnection();
-            ResultSet rs;
-            try (PreparedStatement ps = con.prepareStatement(
-                    "SELECT * FROM reporting_system.users WHERE email = ? and password= ? " )) {
-                ps.setString(1, user.getEmail());
-                ps.setString(2, user.getPassword());
-
-                rs = ps.executeQuery();
+        try (Connection con = Dbfactory.getConnection();
+             PreparedStatement ps = con.prepareStatement(
+                     "SELECT * FROM reporting_system.users WHERE email = ? and password= ? " )) {
+            ps.setString(1, user.getEmail());
+            ps.setString(2, user.getPassword());
 
+            try (ResultSet rs = ps.executeQuery()) {
                 while(rs.next()){
                     user1 = new User();
                     user1.setFullName(rs.getString("fullname"));
@@ -0,0 +1,84 @@
+package com.beans;
+
+import java.sql.Timestamp;
+
+public class BudgetAlert {
+
+    private long alertId;
+    private int projectId;
+    private String projectName;
+    private int thresholdPercent;
+    private double budgetHours;
+    private double actualHours;
+    private Timestamp crossedAt;
+
+    public BudgetAlert() {
+    }
+
+    public BudgetAlert(long alertId, int projectId, String projectName, int thresholdPercent,
+                       double budgetHours, double actualHours, Timestamp crossedAt) {
+        this.alertId = alertId;
+        this.projectId = projectId;
+        this.projectName = projectName;
+        this.thresholdPercent = thresholdPercent;
+        this.budgetHours = budgetHours;
+        this.actualHours = actualHours;
+        this.crossedAt = crossedAt;
+    }
+
+    public long getAlertId() {
+        return alertId;
+    }
+
+    public void setAlertId(long alertId) {
+        this.alertId = alertId;
+    }
+
+    public int getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(int projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public int getThresholdPercent() {
+        return thresholdPercent;
+    }
+
+    public void setThresholdPercent(int thresholdPercent) {
+        this.thresholdPercent = thresholdPercent;
+    }
+
+    public double getBudgetHours() {
+        return budgetHours;
+    }
+
+    public void setBudgetHours(double budgetHours) {
+        this.budgetHours = budgetHours;
+    }
+
+    public double getActualHours() {
+        return actualHours;
+    }
+
+    public void setActualHours(double actualHours) {
+        this.actualHours = actualHours;
+    }
+
+    public Timestamp getCrossedAt() {
+        return crossedAt;
+    }
+
+    public void setCrossedAt(Timestamp crossedAt) {
+        this.crossedAt = crossedAt;
+    }
+}
@@ -0,0 +1,84 @@
+package com.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkImportResult {
+
+    private int totalRows;
+    private int insertedRows;
+    private int failedRows;
+    private int chunks;
+    private long elapsedMillis;
+    private List<RowError> errors = new ArrayList<>();
+
+    public BulkImportResult() {
+    }
+
+    public void addError(int row, String message) {
+        errors.add(new RowError(row, message));
+        failedRows++;
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public int getInsertedRows() {
+        return insertedRows;
+    }
+
+    public void setInsertedRows(int insertedRows) {
+        this.insertedRows = insertedRows;
+    }
+
+    public int getFailedRows() {
+        return failedRows;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public static class RowError {
+
+        private int row;
+        private String message;
+
+        public RowError() {
+        }
+
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
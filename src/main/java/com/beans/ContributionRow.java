@@ -0,0 +1,70 @@
+package com.beans;
+
+public class ContributionRow {
+
+    private String userId;
+    private String userName;
+    private double totalHours;
+    private double billableHours;
+    private int entryCount;
+    private double contributionPercentage;
+
+    public ContributionRow() {
+    }
+
+    public ContributionRow(String userId, String userName, double totalHours, double billableHours, int entryCount) {
+        this.userId = userId;
+        this.userName = userName;
+        this.totalHours = totalHours;
+        this.billableHours = billableHours;
+        this.entryCount = entryCount;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public double getTotalHours() {
+        return totalHours;
+    }
+
+    public void setTotalHours(double totalHours) {
+        this.totalHours = totalHours;
+    }
+
+    public double getBillableHours() {
+        return billableHours;
+    }
+
+    public void setBillableHours(double billableHours) {
+        this.billableHours = billableHours;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public double getContributionPercentage() {
+        return contributionPercentage;
+    }
+
+    public void setContributionPercentage(double contributionPercentage) {
+        this.contributionPercentage = contributionPercentage;
+    }
+}
@@ -0,0 +1,52 @@
+package com.beans;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+public class DailyHours {
+
+    private int epochDay;
+    private double totalHours;
+    private double billableHours;
+
+    public DailyHours() {
+    }
+
+    public DailyHours(int epochDay, double totalHours, double billableHours) {
+        this.epochDay = epochDay;
+        this.totalHours = totalHours;
+        this.billableHours = billableHours;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    public Date getDate() {
+        return Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+    public double getTotalHours() {
+        return totalHours;
+    }
+
+    public void setTotalHours(double totalHours) {
+        this.totalHours = totalHours;
+    }
+
+    public double getBillableHours() {
+        return billableHours;
+    }
+
+    public void setBillableHours(double billableHours) {
+        this.billableHours = billableHours;
+    }
+
+    public double getNonBillableHours() {
+        return totalHours - billableHours;
+    }
+}
@@ -0,0 +1,163 @@
+package com.beans;
+
+import java.sql.Date;
+
+public class PayrollLine {
+
+    private String userId;
+    private String fullName;
+    private String email;
+    private double totalHours;
+    private double regularHours;
+    private double dailyOvertimeHours;
+    private double weeklyOvertimeHours;
+    private double billableHours;
+    private int daysWorked;
+    private double availableHours;
+    private double hourlyRate;
+    private double regularPay;
+    private double overtimePay;
+    private Date periodStart;
+    private Date periodEnd;
+
+    public PayrollLine() {
+    }
+
+    public PayrollLine(String userId, String fullName, String email) {
+        this.userId = userId;
+        this.fullName = fullName;
+        this.email = email;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public double getTotalHours() {
+        return totalHours;
+    }
+
+    public void setTotalHours(double totalHours) {
+        this.totalHours = totalHours;
+    }
+
+    public double getRegularHours() {
+        return regularHours;
+    }
+
+    public void setRegularHours(double regularHours) {
+        this.regularHours = regularHours;
+    }
+
+    public double getDailyOvertimeHours() {
+        return dailyOvertimeHours;
+    }
+
+    public void setDailyOvertimeHours(double dailyOvertimeHours) {
+        this.dailyOvertimeHours = dailyOvertimeHours;
+    }
+
+    public double getWeeklyOvertimeHours() {
+        return weeklyOvertimeHours;
+    }
+
+    public void setWeeklyOvertimeHours(double weeklyOvertimeHours) {
+        this.weeklyOvertimeHours = weeklyOvertimeHours;
+    }
+
+    public double getOvertimeHours() {
+        return dailyOvertimeHours + weeklyOvertimeHours;
+    }
+
+    public double getBillableHours() {
+        return billableHours;
+    }
+
+    public void setBillableHours(double billableHours) {
+        this.billableHours = billableHours;
+    }
+
+    public double getNonBillableHours() {
+        return totalHours - billableHours;
+    }
+
+    public int getDaysWorked() {
+        return daysWorked;
+    }
+
+    public void setDaysWorked(int daysWorked) {
+        this.daysWorked = daysWorked;
+    }
+
+    public double getAvailableHours() {
+        return availableHours;
+    }
+
+    public void setAvailableHours(double availableHours) {
+        this.availableHours = availableHours;
+    }
+
+    public double getHourlyRate() {
+        return hourlyRate;
+    }
+
+    public void setHourlyRate(double hourlyRate) {
+        this.hourlyRate = hourlyRate;
+    }
+
+    public double getRegularPay() {
+        return regularPay;
+    }
+
+    public void setRegularPay(double regularPay) {
+        this.regularPay = regularPay;
+    }
+
+    public double getOvertimePay() {
+        return overtimePay;
+    }
+
+    public void setOvertimePay(double overtimePay) {
+        this.overtimePay = overtimePay;
+    }
+
+    public Date getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(Date periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public Date getPeriodEnd() {
+        return periodEnd;
+    }
+
+    public void setPeriodEnd(Date periodEnd) {
+        this.periodEnd = periodEnd;
+    }
+
+    public double getGrossPay() {
+        return regularPay + overtimePay;
+    }
+}
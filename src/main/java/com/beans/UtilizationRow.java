@@ -0,0 +1,70 @@
+package com.beans;
+
+public class UtilizationRow {
+
+    private String userId;
+    private String userName;
+    private double totalHours;
+    private double billableHours;
+    private double availableHours;
+
+    public UtilizationRow() {
+    }
+
+    public UtilizationRow(String userId, String userName, double totalHours, double billableHours,
+                          double availableHours) {
+        this.userId = userId;
+        this.userName = userName;
+        this.totalHours = totalHours;
+        this.billableHours = billableHours;
+        this.availableHours = availableHours;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public double getTotalHours() {
+        return totalHours;
+    }
+
+    public void setTotalHours(double totalHours) {
+        this.totalHours = totalHours;
+    }
+
+    public double getBillableHours() {
+        return billableHours;
+    }
+
+    public void setBillableHours(double billableHours) {
+        this.billableHours = billableHours;
+    }
+
+    public double getAvailableHours() {
+        return availableHours;
+    }
+
+    public void setAvailableHours(double availableHours) {
+        this.availableHours = availableHours;
+    }
+
+    public double getUtilizationRate() {
+        return availableHours > 0 ? (totalHours / availableHours) * 100 : 0;
+    }
+
+    public double getBillableRate() {
+        return availableHours > 0 ? (billableHours / availableHours) * 100 : 0;
+    }
+}
@@ -1,25 +1,28 @@
 package com.db;
 
+import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.util.Properties;
 import org.apache.log4j.*;
 
 public class Dbfactory {
 
     static final Logger logger =  Logger.getRootLogger();
 
+    private static final String CONFIG_RESOURCE = "/db.properties";
+    private static final Properties config = loadConfig();
+    private static volatile ConnectionPool pool;
+    private static final boolean timed = SqlMetrics.isEnabled();
+    private static final boolean instrumented = timed || LeakDetector.isEnabled();
+
     public static Connection getConnection(){
         logger.info("Dbfactory.getConnection Method entering ... ");
         Connection connection = null;
         try {
-            String dbDriver = "com.mysql.cj.jdbc.Driver";
-            String dbURL = "jdbc:mysql://localhost:3306/";
-            String dbName = "reporting_system";
-            String timeZone ="?serverTimezone=UTC&useSSL=false";
-            String dbUsername = "root";
-            String dbPassword = "1234";
-            Class.forName(dbDriver);
-            connection = DriverManager.getConnection(dbURL + dbName + timeZone, dbUsername, dbPassword);
+            connection = getPool().borrow();
+            if (instrumented || QueryTimeouts.current() > 0) {
+                connection = InstrumentedJdbc.wrap(connection, timed);
+            }
         }
         catch(Exception e)
         {
@@ -30,4 +33,71 @@ public class Dbfactory {
         return connection;
     }
 
+    public static PoolStats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    public static String getProperty(String key, String defaultValue) {
+        return System.getProperty(key, config.getProperty(key, defaultValue));
+    }
+
+    public static int getIntProperty(String key, int defaultValue) {
+        return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)).trim());
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        LeakDetector.shutdown();
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (Dbfactory.class) {
+                current = pool;
+                if (current == null) {
+                    current = createPool();
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static ConnectionPool createPool() {
+        logger.info("Dbfactory.createPool entering ... ");
+        try {
+            Class.forName(getProperty("db.driver", "com.mysql.cj.jdbc.Driver"));
+        } catch (ClassNotFoundException e) {
+            logger.error(e.getMessage());
+            e.printStackTrace();
+        }
+        ConnectionPool created = new ConnectionPool(
+                getProperty("db.url", "jdbc:mysql://localhost:3306/reporting_system?serverTimezone=UTC&useSSL=false&rewriteBatchedStatements=true"),
+                getProperty("db.username", "root"),
+                getProperty("db.password", "1234"),
+                getIntProperty("db.pool.minSize", 2),
+                getIntProperty("db.pool.maxSize", 20),
+                getIntProperty("db.pool.acquireTimeoutMillis", 5000),
+                getIntProperty("db.pool.validationIntervalMillis", 30000),
+                getIntProperty("db.pool.validationTimeoutSeconds", 2));
+        created.warmUp();
+        return created;
+    }
+
+    private static Properties loadConfig() {
+        Properties properties = new Properties();
+        try (InputStream in = Dbfactory.class.getResourceAsStream(CONFIG_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (Exception e) {
+            logger.error("Dbfactory.loadConfig failed: " + e.getMessage());
+        }
+        return properties;
+    }
+
 }
@@ -0,0 +1,212 @@
+package com.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dynamic proxies around Connection, Statement and ResultSet that time every
+ * execute call and count rows read, keyed by the statement's SQL template.
+ * The connection proxy also remembers the statements opened through it and
+ * closes any left open when the connection is returned, and registers both
+ * with the LeakDetector when leak detection is on, and applies the borrowing
+ * thread's QueryTimeouts to every statement it opens.
+ */
+final class InstrumentedJdbc {
+
+    private static final String BATCH_TEMPLATE = "<statement batch>";
+
+    private InstrumentedJdbc() {
+    }
+
+    static Connection wrap(Connection connection, boolean timed) {
+        return proxy(Connection.class, connection, new ConnectionHandler(connection, timed));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedJdbc.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLTimeoutException) {
+                QueryTimeouts.recordTimeout();
+            }
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isExecute(String name) {
+        return name.startsWith("execute");
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final boolean timed;
+        private final Set<StatementHandler> openStatements =
+                Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        private final LeakDetector.Lease lease;
+        private final int queryTimeoutSeconds = QueryTimeouts.current();
+        private boolean closed;
+
+        private ConnectionHandler(Connection target, boolean timed) {
+            this.target = target;
+            this.timed = timed;
+            this.lease = LeakDetector.acquire(LeakDetector.Kind.CONNECTION, "pooled connection");
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("unwrap".equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+            if ("close".equals(name)) {
+                close();
+                return null;
+            }
+            Object result = InstrumentedJdbc.invoke(target, method, args);
+            if ("prepareStatement".equals(name)) {
+                String template = SqlMetrics.template((String) args[0], false);
+                return proxy(PreparedStatement.class, (PreparedStatement) result, track(result, template));
+            }
+            if ("prepareCall".equals(name)) {
+                String template = SqlMetrics.template((String) args[0], false);
+                return proxy(CallableStatement.class, (CallableStatement) result, track(result, template));
+            }
+            if ("createStatement".equals(name)) {
+                return proxy(Statement.class, (Statement) result, track(result, null));
+            }
+            return result;
+        }
+
+        private StatementHandler track(Object statement, String template) throws SQLException {
+            if (queryTimeoutSeconds > 0) {
+                ((Statement) statement).setQueryTimeout(queryTimeoutSeconds);
+            }
+            SqlMetrics.StatementStats stats = timed && template != null ? SqlMetrics.statsFor(template) : null;
+            StatementHandler handler = new StatementHandler(this, statement, stats,
+                    LeakDetector.acquire(LeakDetector.Kind.STATEMENT, template == null ? "statement" : template));
+            openStatements.add(handler);
+            return handler;
+        }
+
+        private void close() throws Throwable {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            List<StatementHandler> leftovers;
+            synchronized (openStatements) {
+                leftovers = new ArrayList<>(openStatements);
+            }
+            for (StatementHandler statement : leftovers) {
+                LeakDetector.statementAutoClosed();
+                try {
+                    statement.close();
+                } catch (Exception e) {
+                    SqlMetrics.logger.warn("InstrumentedJdbc could not close statement: " + e.getMessage());
+                }
+            }
+            LeakDetector.release(lease);
+            target.close();
+        }
+    }
+
+    /**
+     * Prepared statements carry their template from creation; plain statements
+     * derive it from the SQL passed to each execute call.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final ConnectionHandler connection;
+        private final Object target;
+        private final SqlMetrics.StatementStats preparedStats;
+        private final LeakDetector.Lease lease;
+        private SqlMetrics.StatementStats lastStats;
+
+        private StatementHandler(ConnectionHandler connection, Object target,
+                                 SqlMetrics.StatementStats preparedStats, LeakDetector.Lease lease) {
+            this.connection = connection;
+            this.target = target;
+            this.preparedStats = preparedStats;
+            this.lease = lease;
+            this.lastStats = preparedStats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("unwrap".equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+            if ("close".equals(name)) {
+                close();
+                return null;
+            }
+            if ("getResultSet".equals(name)) {
+                return wrapResultSet(InstrumentedJdbc.invoke(target, method, args), lastStats);
+            }
+            if (!connection.timed || !isExecute(name)) {
+                return InstrumentedJdbc.invoke(target, method, args);
+            }
+
+            SqlMetrics.StatementStats stats = preparedStats;
+            if (stats == null) {
+                stats = args != null && args.length > 0 && args[0] instanceof String
+                        ? SqlMetrics.statsFor(SqlMetrics.template((String) args[0], true))
+                        : SqlMetrics.statsFor(BATCH_TEMPLATE);
+            }
+            lastStats = stats;
+
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                Object result = InstrumentedJdbc.invoke(target, method, args);
+                return result instanceof ResultSet ? wrapResultSet(result, stats) : result;
+            } catch (Throwable t) {
+                failed = true;
+                throw t;
+            } finally {
+                SqlMetrics.recordExecution(stats, (System.nanoTime() - start) / 1000, failed);
+            }
+        }
+
+        private void close() throws SQLException {
+            connection.openStatements.remove(this);
+            LeakDetector.release(lease);
+            ((Statement) target).close();
+        }
+    }
+
+    private static Object wrapResultSet(Object resultSet, final SqlMetrics.StatementStats stats) {
+        if (resultSet == null || stats == null) {
+            return resultSet;
+        }
+        final ResultSet target = (ResultSet) resultSet;
+        return proxy(ResultSet.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                stats.addRow();
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,221 @@
+package com.db;
+
+import org.apache.log4j.Logger;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks every connection and statement handed out by Dbfactory together with
+ * the stack that acquired it. A background scan logs each one held longer than
+ * db.leakDetection.thresholdMillis once, with that stack, so the caller that
+ * forgot to close it can be found.
+ */
+public class LeakDetector {
+
+    static Logger logger = Logger.getRootLogger();
+
+    public enum Kind { CONNECTION, STATEMENT }
+
+    private static final boolean enabled =
+            Boolean.parseBoolean(Dbfactory.getProperty("db.leakDetection.enabled", "false"));
+    private static final long thresholdMillis = Dbfactory.getIntProperty("db.leakDetection.thresholdMillis", 30000);
+    private static final long scanIntervalMillis = Dbfactory.getIntProperty("db.leakDetection.scanIntervalMillis", 5000);
+
+    private static final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+    private static final AtomicLong ids = new AtomicLong();
+    private static final LongAdder leakedConnections = new LongAdder();
+    private static final LongAdder leakedStatements = new LongAdder();
+    private static final LongAdder unclosedStatements = new LongAdder();
+    private static ScheduledExecutorService scanner;
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    static Lease acquire(Kind kind, String description) {
+        if (!enabled) {
+            return null;
+        }
+        startScanner();
+        Lease lease = new Lease(ids.incrementAndGet(), kind, description);
+        leases.put(lease.id, lease);
+        return lease;
+    }
+
+    static void release(Lease lease) {
+        if (lease == null || leases.remove(lease.id) == null) {
+            return;
+        }
+        if (lease.flagged) {
+            logger.warn("Leaked " + lease.kind + " #" + lease.id + " closed after "
+                    + (System.currentTimeMillis() - lease.acquiredAt) + " ms");
+        }
+    }
+
+    /**
+     * Counted whenever a connection goes back to the pool with statements its
+     * caller never closed; the wrapper closes them on its behalf.
+     */
+    static void statementAutoClosed() {
+        unclosedStatements.increment();
+    }
+
+    static void scan() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases.values()) {
+            if (lease.flagged || now - lease.acquiredAt < thresholdMillis) {
+                continue;
+            }
+            lease.flagged = true;
+            (lease.kind == Kind.CONNECTION ? leakedConnections : leakedStatements).increment();
+            logger.warn("Possible " + lease.kind + " leak: #" + lease.id + " held for " + (now - lease.acquiredAt)
+                    + " ms by thread " + lease.thread + " (" + lease.description + ")", lease.site);
+        }
+    }
+
+    public static int getOutstandingConnections() {
+        return count(Kind.CONNECTION);
+    }
+
+    public static int getOutstandingStatements() {
+        return count(Kind.STATEMENT);
+    }
+
+    public static long getLeakedConnectionCount() {
+        return leakedConnections.sum();
+    }
+
+    public static long getLeakedStatementCount() {
+        return leakedStatements.sum();
+    }
+
+    public static long getUnclosedStatementCount() {
+        return unclosedStatements.sum();
+    }
+
+    /**
+     * Snapshot of the resources currently past the threshold, oldest first.
+     */
+    public static List<LeakInfo> getSuspectedLeaks() {
+        List<LeakInfo> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases.values()) {
+            if (now - lease.acquiredAt >= thresholdMillis) {
+                result.add(new LeakInfo(lease, now));
+            }
+        }
+        result.sort((a, b) -> Long.compare(b.heldMillis, a.heldMillis));
+        return result;
+    }
+
+    public static synchronized void shutdown() {
+        if (scanner != null) {
+            scanner.shutdownNow();
+            scanner = null;
+        }
+    }
+
+    private static int count(Kind kind) {
+        int count = 0;
+        for (Lease lease : leases.values()) {
+            if (lease.kind == kind) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static synchronized void startScanner() {
+        if (scanner != null) {
+            return;
+        }
+        scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jdbc-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scanner.scheduleWithFixedDelay(() -> {
+            try {
+                scan();
+            } catch (Exception e) {
+                logger.error("LeakDetector.scan failed: " + e.getMessage());
+            }
+        }, scanIntervalMillis, scanIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("LeakDetector started, threshold " + thresholdMillis + " ms");
+    }
+
+    static final class Lease {
+
+        private final long id;
+        private final Kind kind;
+        private final String description;
+        private final String thread;
+        private final long acquiredAt;
+        private final Throwable site;
+        private volatile boolean flagged;
+
+        private Lease(long id, Kind kind, String description) {
+            this.id = id;
+            this.kind = kind;
+            this.description = description;
+            this.thread = Thread.currentThread().getName();
+            this.acquiredAt = System.currentTimeMillis();
+            this.site = new Throwable("Acquired here");
+        }
+    }
+
+    public static class LeakInfo {
+
+        private final long id;
+        private final String kind;
+        private final String description;
+        private final String thread;
+        private final long heldMillis;
+        private final String stackTrace;
+
+        LeakInfo(Lease lease, long now) {
+            this.id = lease.id;
+            this.kind = lease.kind.name();
+            this.description = lease.description;
+            this.thread = lease.thread;
+            this.heldMillis = now - lease.acquiredAt;
+            StringWriter trace = new StringWriter();
+            lease.site.printStackTrace(new PrintWriter(trace));
+            this.stackTrace = trace.toString();
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getHeldMillis() {
+            return heldMillis;
+        }
+
+        public String getStackTrace() {
+            return stackTrace;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.db;
+
+public class PoolStats {
+
+    private int minSize;
+    private int maxSize;
+    private int openConnections;
+    private int idleConnections;
+    private int activeConnections;
+    private int waitingThreads;
+    private long createdCount;
+    private long destroyedCount;
+    private long borrowCount;
+    private long timeoutCount;
+    private long validationFailureCount;
+    private double avgWaitMillis;
+
+    public PoolStats() {
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getOpenConnections() {
+        return openConnections;
+    }
+
+    public void setOpenConnections(int openConnections) {
+        this.openConnections = openConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public void setIdleConnections(int idleConnections) {
+        this.idleConnections = idleConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public void setActiveConnections(int activeConnections) {
+        this.activeConnections = activeConnections;
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    public void setWaitingThreads(int waitingThreads) {
+        this.waitingThreads = waitingThreads;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public void setCreatedCount(long createdCount) {
+        this.createdCount = createdCount;
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount;
+    }
+
+    public void setDestroyedCount(long destroyedCount) {
+        this.destroyedCount = destroyedCount;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public void setBorrowCount(long borrowCount) {
+        this.borrowCount = borrowCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public void setTimeoutCount(long timeoutCount) {
+        this.timeoutCount = timeoutCount;
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailureCount;
+    }
+
+    public void setValidationFailureCount(long validationFailureCount) {
+        this.validationFailureCount = validationFailureCount;
+    }
+
+    public double getAvgWaitMillis() {
+        return avgWaitMillis;
+    }
+
+    public void setAvgWaitMillis(double avgWaitMillis) {
+        this.avgWaitMillis = avgWaitMillis;
+    }
+}
@@ -0,0 +1,96 @@
+package com.db;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JDBC query timeout applied to the statements a thread opens. The default
+ * comes from db.queryTimeoutSeconds (0 means none) and a caller can scope a
+ * different one around a unit of work. The driver cancels a statement that
+ * runs past it on the server and throws SQLTimeoutException. A scoped call
+ * rethrows the timeout even when the work caught it and returned a partial
+ * result.
+ */
+public final class QueryTimeouts {
+
+    private static final ThreadLocal<Scope> scoped = new ThreadLocal<>();
+    private static final AtomicLong timeouts = new AtomicLong();
+    private static volatile int defaultSeconds = -1;
+
+    private QueryTimeouts() {
+    }
+
+    /**
+     * Seconds for statements opened on this thread now, 0 for no limit.
+     */
+    public static int current() {
+        Scope scope = scoped.get();
+        if (scope != null) {
+            return scope.seconds;
+        }
+        int fallback = defaultSeconds;
+        if (fallback < 0) {
+            fallback = Dbfactory.getIntProperty("db.queryTimeoutSeconds", 0);
+            defaultSeconds = fallback;
+        }
+        return fallback;
+    }
+
+    /**
+     * Runs the work with statements opened on this thread limited to the
+     * given seconds. Throws TimedOutException if any of them timed out.
+     */
+    public static <T> T call(int seconds, Callable<T> work) throws Exception {
+        Scope previous = scoped.get();
+        Scope scope = new Scope(seconds);
+        scoped.set(scope);
+        try {
+            T result = work.call();
+            if (scope.timedOut) {
+                throw new TimedOutException(seconds);
+            }
+            return result;
+        } finally {
+            if (previous == null) {
+                scoped.remove();
+            } else {
+                scoped.set(previous);
+            }
+        }
+    }
+
+    public static long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    static void recordTimeout() {
+        timeouts.incrementAndGet();
+        Scope scope = scoped.get();
+        if (scope != null) {
+            scope.timedOut = true;
+        }
+    }
+
+    /**
+     * A statement in a scoped call ran past its query timeout.
+     */
+    public static final class TimedOutException extends SQLTimeoutException {
+
+        private static final long serialVersionUID = 1L;
+
+        private TimedOutException(int seconds) {
+            super("query exceeded " + seconds + "s timeout");
+        }
+    }
+
+    private static final class Scope {
+
+        private final int seconds;
+        private boolean timedOut;
+
+        private Scope(int seconds) {
+            this.seconds = seconds;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.db;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies the versioned scripts under /db/migration in order and records each
+ * one in schema_version, so running it again on every startup is a no-op.
+ */
+public class SchemaMigrator {
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static final String MIGRATION_PATH = "/db/migration/";
+
+    // version, script name; append new scripts here, never reorder or edit applied ones
+    private static final String[][] MIGRATIONS = {
+            {"1", "V1__core_tables.sql"},
+            {"2", "V2__covering_indexes.sql"},
+            {"3", "V3__daily_rollup.sql"},
+            {"4", "V4__rate_tables.sql"},
+            {"5", "V5__working_calendar.sql"},
+            {"6", "V6__calendar_columns.sql"},
+    };
+
+    // MySQL error codes that mean the object a statement creates already exists
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+    private static final int ER_TABLE_EXISTS = 1050;
+
+    public static int migrate() throws SQLException {
+        logger.info("SchemaMigrator.migrate entering...");
+        int applied = 0;
+        try (Connection con = Dbfactory.getConnection()) {
+            if (con == null) {
+                throw new SQLException("No connection available for schema migration");
+            }
+            ensureVersionTable(con);
+            Set<Integer> done = loadAppliedVersions(con);
+            for (String[] migration : MIGRATIONS) {
+                int version = Integer.parseInt(migration[0]);
+                if (done.contains(version)) {
+                    continue;
+                }
+                apply(con, version, migration[1]);
+                applied++;
+            }
+        }
+        logger.info("SchemaMigrator.migrate applied " + applied + " migration(s)");
+        return applied;
+    }
+
+    public static int latestVersion() {
+        return Integer.parseInt(MIGRATIONS[MIGRATIONS.length - 1][0]);
+    }
+
+    private static void ensureVersionTable(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT NOT NULL PRIMARY KEY, " +
+                    "script VARCHAR(255) NOT NULL, " +
+                    "applied_at TIMESTAMP NULL DEFAULT NULL)");
+        }
+    }
+
+    private static Set<Integer> loadAppliedVersions(Connection con) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt("version"));
+            }
+        }
+        return versions;
+    }
+
+    private static void apply(Connection con, int version, String script) throws SQLException {
+        logger.info("SchemaMigrator.apply version " + version + " : " + script);
+        List<String> statements = readStatements(script);
+        try (Statement st = con.createStatement()) {
+            for (String sql : statements) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    if (!isAlreadyApplied(e)) {
+                        throw new SQLException("Migration " + script + " failed on: " + sql, e);
+                    }
+                    logger.info("SchemaMigrator.apply skipping existing object: " + e.getMessage());
+                }
+            }
+        }
+        try (PreparedStatement ps = con.prepareStatement(
+                "INSERT INTO schema_version (version, script, applied_at) VALUES (?, ?, ?)")) {
+            ps.setInt(1, version);
+            ps.setString(2, script);
+            ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            ps.execute();
+        }
+    }
+
+    private static boolean isAlreadyApplied(SQLException e) {
+        int code = e.getErrorCode();
+        return code == ER_DUP_FIELDNAME || code == ER_DUP_KEYNAME || code == ER_TABLE_EXISTS;
+    }
+
+    static List<String> readStatements(String script) throws SQLException {
+        List<String> statements = new ArrayList<>();
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(MIGRATION_PATH + script)) {
+            if (in == null) {
+                throw new SQLException("Migration script not found: " + script);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            StringBuilder current = new StringBuilder();
+            String delimiter = ";";
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                    continue;
+                }
+                // same directive as the mysql client, needed for trigger bodies
+                if (trimmed.toUpperCase().startsWith("DELIMITER ")) {
+                    delimiter = trimmed.substring("DELIMITER ".length()).trim();
+                    continue;
+                }
+                current.append(line).append('\n');
+                if (trimmed.endsWith(delimiter)) {
+                    String sql = current.toString().trim();
+                    statements.add(sql.substring(0, sql.length() - delimiter.length()));
+                    current.setLength(0);
+                }
+            }
+            if (current.toString().trim().length() > 0) {
+                statements.add(current.toString().trim());
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read migration script " + script, e);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,153 @@
+package com.db;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Per statement template latency, row and error counters fed by the
+ * instrumented JDBC wrappers, plus a bounded log of the latest slow queries.
+ */
+public class SqlMetrics {
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.)*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private static final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    private static final long slowQueryMicros = Dbfactory.getIntProperty("db.metrics.slowQueryMillis", 500) * 1000L;
+    private static final int slowQueryLogSize = Dbfactory.getIntProperty("db.metrics.slowQueryLogSize", 100);
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(Dbfactory.getProperty("db.metrics.enabled", "true"));
+    }
+
+    /**
+     * Collapses whitespace; for plain Statement SQL also replaces literals with ?
+     * so the same query with different values lands in one series.
+     */
+    static String template(String sql, boolean stripLiterals) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        if (stripLiterals) {
+            normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+            normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        }
+        return normalized;
+    }
+
+    static StatementStats statsFor(String template) {
+        StatementStats stats = statements.get(template);
+        if (stats == null) {
+            stats = statements.computeIfAbsent(template, StatementStats::new);
+        }
+        return stats;
+    }
+
+    static void recordExecution(StatementStats stats, long micros, boolean failed) {
+        stats.latency.record(micros);
+        if (failed) {
+            stats.errors.increment();
+        }
+        if (micros >= slowQueryMicros) {
+            logger.warn("Slow SQL (" + micros / 1000 + " ms): " + stats.template);
+            synchronized (slowQueries) {
+                slowQueries.addFirst(new SlowQuery(stats.template, micros / 1000, System.currentTimeMillis(), failed));
+                while (slowQueries.size() > slowQueryLogSize) {
+                    slowQueries.removeLast();
+                }
+            }
+        }
+    }
+
+    public static List<StatementStats> getStatementStats() {
+        return new ArrayList<>(statements.values());
+    }
+
+    public static List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return Collections.unmodifiableList(new ArrayList<>(slowQueries));
+        }
+    }
+
+    public static void reset() {
+        statements.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    public static class StatementStats {
+
+        private final String template;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        StatementStats(String template) {
+            this.template = template;
+        }
+
+        void addRow() {
+            rows.increment();
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+
+    public static class SlowQuery {
+
+        private final String template;
+        private final long elapsedMillis;
+        private final long timestamp;
+        private final boolean failed;
+
+        SlowQuery(String template, long elapsedMillis, long timestamp, boolean failed) {
+            this.template = template;
+            this.elapsedMillis = elapsedMillis;
+            this.timestamp = timestamp;
+            this.failed = failed;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.services;
+
+import com.beans.BudgetAlert;
+import com.beans.TimeEntry;
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Running hours per project in striped DoubleAdders, fed by the services that
+ * write time entries. Each write checks the project against the percent of
+ * budget thresholds in budget.alerts.thresholds and raises one alert per
+ * threshold crossed, so nothing has to poll getAllProjectsBudgetStatus.
+ * Alerts go to registered listeners on a background thread and are kept for
+ * the alerts endpoint.
+ */
+public class BudgetAlertService {
+
+    static Logger logger = Logger.getRootLogger();
+
+    public interface Listener {
+        void onThresholdCrossed(BudgetAlert alert);
+    }
+
+    private static final boolean enabled =
+            Boolean.parseBoolean(Dbfactory.getProperty("budget.alerts.enabled", "true"));
+    private static final int[] thresholds = parseThresholds(Dbfactory.getProperty("budget.alerts.thresholds", "80,100"));
+    private static final int historySize = Dbfactory.getIntProperty("budget.alerts.historySize", 500);
+
+    private static final Map<Integer, ProjectTotals> projects = new ConcurrentHashMap<>();
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static final Deque<BudgetAlert> recentAlerts = new ArrayDeque<>();
+    private static final AtomicLong alertIds = new AtomicLong();
+    private static volatile boolean loaded;
+    private static ExecutorService dispatcher;
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Loads the current totals; thresholds already crossed at startup are
+     * armed as crossed and do not alert again.
+     */
+    public static synchronized void start() throws SQLException {
+        if (!enabled || loaded) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try (Connection con = Dbfactory.getConnection()) {
+            String sql = "SELECT p.project_id, p.project_name, p.budget_hours, " +
+                        "COALESCE(SUM(r.total_hours), 0) as actual_hours " +
+                        "FROM reporting_system.projects p " +
+                        "LEFT JOIN reporting_system.time_entry_daily_rollup r ON p.project_id = r.project_id " +
+                        "GROUP BY p.project_id, p.project_name, p.budget_hours";
+            try (PreparedStatement ps = con.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ProjectTotals totals = project(rs.getInt("project_id"));
+                    totals.name = rs.getString("project_name");
+                    totals.budgetHours = rs.getDouble("budget_hours");
+                    totals.hours.add(rs.getDouble("actual_hours"));
+                    totals.level.set(levelFor(totals));
+                }
+            }
+        }
+        dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "budget-alerts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loaded = true;
+        logger.info("BudgetAlertService tracking " + projects.size() + " projects, thresholds "
+                + Arrays.toString(thresholds) + "%, loaded in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    public static synchronized void shutdown() {
+        loaded = false;
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+            dispatcher = null;
+        }
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public static void recordEntry(int projectId, double hours) {
+        if (!loaded) {
+            return;
+        }
+        ProjectTotals totals = project(projectId);
+        totals.hours.add(hours);
+        check(projectId, totals);
+    }
+
+    public static void recordEntries(List<TimeEntry> entries) {
+        if (!loaded) {
+            return;
+        }
+        for (TimeEntry entry : entries) {
+            recordEntry(entry.getProjectId(), entry.getHoursWorked());
+        }
+    }
+
+    public static void recordProject(int projectId, String name, double budgetHours) {
+        if (!loaded) {
+            return;
+        }
+        ProjectTotals totals = project(projectId);
+        totals.name = name;
+        setBudget(projectId, budgetHours);
+    }
+
+    /**
+     * A raised budget re-arms the thresholds the project is now under; a
+     * lowered one alerts on any it is now over.
+     */
+    public static void setBudget(int projectId, double budgetHours) {
+        if (!loaded) {
+            return;
+        }
+        ProjectTotals totals = project(projectId);
+        totals.budgetHours = budgetHours;
+        int level = levelFor(totals);
+        int fired;
+        while ((fired = totals.level.get()) > level) {
+            if (totals.level.compareAndSet(fired, level)) {
+                break;
+            }
+        }
+        check(projectId, totals);
+    }
+
+    /**
+     * Alerts newer than afterId, newest first.
+     */
+    public static List<BudgetAlert> getRecentAlerts(long afterId) {
+        logger.info("BudgetAlertService.getRecentAlerts entering...");
+
+        List<BudgetAlert> alerts = new ArrayList<>();
+        synchronized (recentAlerts) {
+            Iterator<BudgetAlert> newestFirst = recentAlerts.descendingIterator();
+            while (newestFirst.hasNext()) {
+                BudgetAlert alert = newestFirst.next();
+                if (alert.getAlertId() <= afterId) {
+                    break;
+                }
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Budget use of every tracked project from the running totals.
+     */
+    public static List<Map<String, Object>> getLiveBudgetStatus() {
+        logger.info("BudgetAlertService.getLiveBudgetStatus entering...");
+
+        List<Map<String, Object>> statuses = new ArrayList<>();
+        for (Map.Entry<Integer, ProjectTotals> entry : projects.entrySet()) {
+            ProjectTotals totals = entry.getValue();
+            double actualHours = totals.hours.sum();
+            double budgetHours = totals.budgetHours;
+            Map<String, Object> status = new HashMap<>();
+            status.put("projectId", entry.getKey());
+            status.put("projectName", totals.name);
+            status.put("budgetHours", budgetHours);
+            status.put("actualHours", actualHours);
+            status.put("remainingHours", budgetHours - actualHours);
+            status.put("percentUsed", budgetHours > 0 ? (actualHours / budgetHours) * 100 : 0);
+            status.put("thresholdsCrossed", totals.level.get());
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    public static long getAlertCount() {
+        return alertIds.get();
+    }
+
+    public static int getTrackedProjectCount() {
+        return projects.size();
+    }
+
+    private static void check(int projectId, ProjectTotals totals) {
+        int level = levelFor(totals);
+        int fired;
+        while ((fired = totals.level.get()) < level) {
+            if (totals.level.compareAndSet(fired, level)) {
+                double actualHours = totals.hours.sum();
+                for (int i = fired; i < level; i++) {
+                    raise(new BudgetAlert(alertIds.incrementAndGet(), projectId, totals.name, thresholds[i],
+                            totals.budgetHours, actualHours, new Timestamp(System.currentTimeMillis())));
+                }
+                return;
+            }
+        }
+    }
+
+    private static void raise(BudgetAlert alert) {
+        logger.warn("Project " + alert.getProjectId() + " (" + alert.getProjectName() + ") crossed "
+                + alert.getThresholdPercent() + "% of its " + alert.getBudgetHours() + " budget hours");
+        synchronized (recentAlerts) {
+            recentAlerts.addLast(alert);
+            if (recentAlerts.size() > historySize) {
+                recentAlerts.removeFirst();
+            }
+        }
+        ExecutorService current = dispatcher;
+        if (current == null || listeners.isEmpty()) {
+            return;
+        }
+        current.execute(() -> {
+            for (Listener listener : listeners) {
+                try {
+                    listener.onThresholdCrossed(alert);
+                } catch (Exception e) {
+                    logger.error("BudgetAlertService listener failed: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * How many thresholds the project is at or over.
+     */
+    private static int levelFor(ProjectTotals totals) {
+        double budgetHours = totals.budgetHours;
+        if (budgetHours <= 0) {
+            return 0;
+        }
+        double percentUsed = (totals.hours.sum() / budgetHours) * 100;
+        int level = 0;
+        while (level < thresholds.length && percentUsed >= thresholds[level]) {
+            level++;
+        }
+        return level;
+    }
+
+    private static ProjectTotals project(int projectId) {
+        return projects.computeIfAbsent(projectId, k -> new ProjectTotals());
+    }
+
+    private static int[] parseThresholds(String value) {
+        String[] parts = value.split(",");
+        int[] parsed = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            parsed[i] = Integer.parseInt(parts[i].trim());
+        }
+        Arrays.sort(parsed);
+        return parsed;
+    }
+
+    private static final class ProjectTotals {
+        final DoubleAdder hours = new DoubleAdder();
+        // number of thresholds already alerted
+        final AtomicInteger level = new AtomicInteger();
+        volatile String name;
+        volatile double budgetHours;
+    }
+}
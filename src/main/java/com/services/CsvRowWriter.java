@@ -0,0 +1,101 @@
+package com.services;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Writes CSV fields straight to a Writer. Decimals are written digit by digit
+ * from a reused buffer so a large export does not allocate per value the way
+ * String.format does.
+ */
+public class CsvRowWriter {
+
+    private final Writer out;
+    private final char[] digits = new char[24];
+    private boolean firstField = true;
+
+    public CsvRowWriter(Writer out) {
+        this.out = out;
+    }
+
+    public CsvRowWriter field(String value) throws IOException {
+        separator();
+        if (value != null) {
+            out.write(value);
+        }
+        return this;
+    }
+
+    public CsvRowWriter quoted(String value) throws IOException {
+        separator();
+        out.write('"');
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.write('"');
+                }
+                out.write(c);
+            }
+        }
+        out.write('"');
+        return this;
+    }
+
+    /**
+     * Same digits as String.format("%.2f", value): the shortest decimal form
+     * of the double rounded half up on the hundredths, so 1.005 is "1.01".
+     * A value that rounds to zero is written without a sign.
+     */
+    public CsvRowWriter decimal2(double value) throws IOException {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.write(Double.toString(value));
+            return this;
+        }
+        double scaled = Math.abs(value) * 100;
+        if (scaled >= 1e15 || Math.abs(scaled - Math.floor(scaled) - 0.5) < 1e-6) {
+            // near a half cent the binary product can land either side of it
+            String text = BigDecimal.valueOf(Math.abs(value)).setScale(2, RoundingMode.HALF_UP).toPlainString();
+            if (value < 0 && !"0.00".equals(text)) {
+                out.write('-');
+            }
+            out.write(text);
+            return this;
+        }
+        long cents = Math.round(scaled);
+        if (value < 0 && cents != 0) {
+            out.write('-');
+        }
+        int pos = digits.length;
+        digits[--pos] = (char) ('0' + cents % 10);
+        cents /= 10;
+        digits[--pos] = (char) ('0' + cents % 10);
+        cents /= 10;
+        digits[--pos] = '.';
+        do {
+            digits[--pos] = (char) ('0' + cents % 10);
+            cents /= 10;
+        } while (cents > 0);
+        out.write(digits, pos, digits.length - pos);
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        out.write('\n');
+        firstField = true;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            out.write(',');
+        }
+        firstField = false;
+    }
+}
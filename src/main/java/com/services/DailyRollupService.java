@@ -0,0 +1,73 @@
+package com.services;
+
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.sql.*;
+
+/**
+ * Maintenance for time_entry_daily_rollup. Triggers on time_entries keep the
+ * table current; rebuild() recomputes a date range from the raw entries to
+ * repair drift, such as after direct SQL edits to the rollup or a restore of
+ * one table without the other.
+ */
+public class DailyRollupService {
+
+    static Logger logger = Logger.getRootLogger();
+
+    /**
+     * Replaces the rollup rows in the range in one transaction and returns how
+     * many were written; a failure rolls back and is rethrown.
+     */
+    public static int rebuild(Date fromDate, Date toDate) throws SQLException {
+        logger.info("DailyRollupService.rebuild entering... " + fromDate + " to " + toDate);
+
+        int rows = 0;
+        try (Connection con = Dbfactory.getConnection()) {
+            if (con == null) {
+                throw new SQLException("No database connection available");
+            }
+            con.setAutoCommit(false);
+            try (PreparedStatement delete = con.prepareStatement(
+                    "DELETE FROM reporting_system.time_entry_daily_rollup WHERE work_date >= ? AND work_date <= ?")) {
+                delete.setDate(1, fromDate);
+                delete.setDate(2, toDate);
+                delete.execute();
+            }
+
+            String sql = "INSERT INTO reporting_system.time_entry_daily_rollup " +
+                        "(user_id, project_id, work_date, total_hours, billable_hours, entry_count) " +
+                        "SELECT user_id, project_id, work_date, SUM(hours_worked), " +
+                        "SUM(CASE WHEN is_billable = true THEN hours_worked ELSE 0 END), COUNT(*) " +
+                        "FROM reporting_system.time_entries " +
+                        "WHERE start_time >= ? AND start_time < DATE_ADD(?, INTERVAL 1 DAY) " +
+                        "GROUP BY user_id, project_id, work_date";
+            try (PreparedStatement insert = con.prepareStatement(sql)) {
+                insert.setDate(1, fromDate);
+                insert.setDate(2, toDate);
+                rows = insert.executeUpdate();
+            }
+            con.commit();
+        } catch (SQLException e) {
+            logger.error("DailyRollupService.rebuild failed: " + e.getMessage());
+            throw e;
+        }
+
+        logger.info("DailyRollupService.rebuild wrote " + rows + " rollup rows");
+        return rows;
+    }
+
+    public static int rebuildAll() throws SQLException {
+        return rebuild(Date.valueOf("1970-01-01"), Date.valueOf("9999-12-31"));
+    }
+
+    /**
+     * Backfill from the command line: DailyRollupService [fromDate toDate]
+     * with dates as yyyy-MM-dd; no arguments rebuilds everything.
+     */
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length >= 2 ? rebuild(Date.valueOf(args[0]), Date.valueOf(args[1])) : rebuildAll();
+        System.out.println("Rebuilt " + rows + " rollup rows");
+        Dbfactory.shutdown();
+    }
+}
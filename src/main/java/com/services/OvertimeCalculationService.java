@@ -22,9 +22,8 @@ public class OvertimeCalculationService {
         logger.info("OvertimeCalculationService.calculateWeeklyOvertime entering...");
 
         Map<String, Double> overtimeData = new HashMap<>();
-        Connection con = Dbfactory.getConnection();
 
-        try {
+        try (Connection con = Dbfactory.getConnection()) {
             Calendar cal = Calendar.getInstance();
             cal.setTime(weekStartDate);
             cal.add(Calendar.DAY_OF_MONTH, 7);
@@ -32,26 +31,26 @@ public class OvertimeCalculationService {
 
             String sql = "SELECT SUM(hours_worked) as total_hours FROM reporting_system.time_entries " +
                         "WHERE user_id = ? AND start_time >= ? AND start_time < ?";
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, userId);
-            preparedStmt.setDate(2, weekStartDate);
-            preparedStmt.setDate(3, weekEndDate);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            if (rs.next()) {
-                double totalHours = rs.getDouble("total_hours");
-                double regularHours = Math.min(totalHours, STANDARD_HOURS_PER_WEEK);
-                double overtimeHours = Math.max(0, totalHours - STANDARD_HOURS_PER_WEEK);
-
-                overtimeData.put("totalHours", totalHours);
-                overtimeData.put("regularHours", regularHours);
-                overtimeData.put("overtimeHours", overtimeHours);
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, userId);
+                preparedStmt.setDate(2, weekStartDate);
+                preparedStmt.setDate(3, weekEndDate);
+
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    if (rs.next()) {
+                        double totalHours = rs.getDouble("total_hours");
+                        double regularHours = Math.min(totalHours, STANDARD_HOURS_PER_WEEK);
+                        double overtimeHours = Math.max(0, totalHours - STANDARD_HOURS_PER_WEEK);
+
+                        overtimeData.put("totalHours", totalHours);
+                        overtimeData.put("regularHours", regularHours);
+                        overtimeData.put("overtimeHours", overtimeHours);
+                    }
+                }
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return overtimeData;
@@ -61,69 +60,76 @@ public class OvertimeCalculationService {
         logger.info("OvertimeCalculationService.calculateDailyOvertime entering...");
 
         List<Map<String, Object>> dailyOvertimeList = new ArrayList<>();
-        Connection con = Dbfactory.getConnection();
 
-        try {
-            String sql = "SELECT DATE(start_time) as work_date, SUM(hours_worked) as daily_hours " +
+        try (Connection con = Dbfactory.getConnection()) {
+            String sql = "SELECT work_date, SUM(hours_worked) as daily_hours " +
                         "FROM reporting_system.time_entries " +
-                        "WHERE user_id = ? AND start_time >= ? AND start_time <= ? " +
-                        "GROUP BY DATE(start_time)";
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, userId);
-            preparedStmt.setDate(2, startDate);
-            preparedStmt.setDate(3, endDate);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            while (rs.next()) {
-                Map<String, Object> dailyData = new HashMap<>();
-                Date workDate = rs.getDate("work_date");
-                double dailyHours = rs.getDouble("daily_hours");
-                double regularHours = Math.min(dailyHours, STANDARD_HOURS_PER_DAY);
-                double overtimeHours = Math.max(0, dailyHours - STANDARD_HOURS_PER_DAY);
-
-                dailyData.put("workDate", workDate);
-                dailyData.put("totalHours", dailyHours);
-                dailyData.put("regularHours", regularHours);
-                dailyData.put("overtimeHours", overtimeHours);
-                dailyOvertimeList.add(dailyData);
+                        "WHERE user_id = ? AND work_date >= ? AND work_date <= ? " +
+                        "GROUP BY work_date " +
+                        "ORDER BY work_date";
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, userId);
+                preparedStmt.setDate(2, startDate);
+                preparedStmt.setDate(3, endDate);
+
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    while (rs.next()) {
+                        dailyOvertimeList.add(splitDailyOvertime(rs.getDate("work_date"), rs.getDouble("daily_hours")));
+                    }
+                }
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return dailyOvertimeList;
     }
 
+    /**
+     * Splits one day's hours into regular and overtime at the daily standard.
+     */
+    public static Map<String, Object> splitDailyOvertime(Date workDate, double dailyHours) {
+        Map<String, Object> dailyData = new HashMap<>();
+        double regularHours = Math.min(dailyHours, STANDARD_HOURS_PER_DAY);
+        double overtimeHours = Math.max(0, dailyHours - STANDARD_HOURS_PER_DAY);
+
+        dailyData.put("workDate", workDate);
+        dailyData.put("totalHours", dailyHours);
+        dailyData.put("regularHours", regularHours);
+        dailyData.put("overtimeHours", overtimeHours);
+        return dailyData;
+    }
+
     public static double calculateOvertimePay(String userId, Date periodStart, Date periodEnd, double hourlyRate) throws SQLException {
         logger.info("OvertimeCalculationService.calculateOvertimePay entering...");
 
         double overtimePay = 0.0;
-        Connection con = Dbfactory.getConnection();
 
         try {
-            String sql = "SELECT SUM(hours_worked) as total_hours FROM reporting_system.time_entries " +
-                        "WHERE user_id = ? AND start_time >= ? AND start_time <= ?";
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, userId);
-            preparedStmt.setDate(2, periodStart);
-            preparedStmt.setDate(3, periodEnd);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            if (rs.next()) {
-                double totalHours = rs.getDouble("total_hours");
-                long days = (periodEnd.getTime() - periodStart.getTime()) / (1000 * 60 * 60 * 24);
-                double standardHours = (days / 7.0) * STANDARD_HOURS_PER_WEEK;
-                double overtimeHours = Math.max(0, totalHours - standardHours);
-                overtimePay = overtimeHours * hourlyRate * 1.5;
+            // loaded before borrowing a connection, since a first load takes one of its own
+            WorkingCalendarService.WorkingCalendar calendar = WorkingCalendarService.getCalendar();
+            try (Connection con = Dbfactory.getConnection()) {
+                String sql = "SELECT SUM(hours_worked) as total_hours FROM reporting_system.time_entries " +
+                            "WHERE user_id = ? AND work_date >= ? AND work_date <= ?";
+                try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                    preparedStmt.setString(1, userId);
+                    preparedStmt.setDate(2, periodStart);
+                    preparedStmt.setDate(3, periodEnd);
+
+                    try (ResultSet rs = preparedStmt.executeQuery()) {
+                        if (rs.next()) {
+                            double totalHours = rs.getDouble("total_hours");
+                            double standardHours = calendar.availableHours(userId, periodStart, periodEnd);
+                            double overtimeHours = Math.max(0, totalHours - standardHours);
+                            overtimePay = overtimeHours * hourlyRate * 1.5;
+                        }
+                    }
+                }
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return overtimePay;
@@ -133,26 +139,33 @@ public class OvertimeCalculationService {
                                              Timestamp endTime, double hours) throws SQLException {
         logger.info("OvertimeCalculationService.recordOvertimeEntry entering...");
 
-        Connection con = Dbfactory.getConnection();
-        try {
+        try (Connection con = Dbfactory.getConnection()) {
             String sql = "INSERT INTO reporting_system.time_entries " +
                         "(user_id, project_id, start_time, end_time, hours_worked, is_billable, entry_type, created_at) " +
                         "VALUES (?, ?, ?, ?, ?, ?, 'OVERTIME', ?)";
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, userId);
-            preparedStmt.setInt(2, projectId);
-            preparedStmt.setTimestamp(3, startTime);
-            preparedStmt.setTimestamp(4, endTime);
-            preparedStmt.setDouble(5, hours);
-            preparedStmt.setBoolean(6, true);
-            preparedStmt.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
-            preparedStmt.execute();
-            return true;
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, userId);
+                preparedStmt.setInt(2, projectId);
+                preparedStmt.setTimestamp(3, startTime);
+                preparedStmt.setTimestamp(4, endTime);
+                preparedStmt.setDouble(5, hours);
+                preparedStmt.setBoolean(6, true);
+                preparedStmt.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
+                preparedStmt.execute();
+                TimeEntryColumnStore store = TimeEntryColumnStore.ifLoaded();
+                if (store != null) {
+                    store.recordEntry(userId, projectId, startTime, hours, true);
+                }
+                ProjectBurnIndex burn = ProjectBurnIndex.ifLoaded();
+                if (burn != null) {
+                    burn.recordEntry(projectId, startTime, hours);
+                }
+                BudgetAlertService.recordEntry(projectId, hours);
+                return true;
+            }
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
         return false;
     }
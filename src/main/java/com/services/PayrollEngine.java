@@ -0,0 +1,238 @@
+package com.services;
+
+import com.beans.PayrollLine;
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Payroll for every employee in a period from one streaming read of
+ * time_entries ordered by user. The reader folds each user's entries into
+ * daily totals; the overtime and pay math then runs over user partitions on
+ * the common fork-join pool.
+ *
+ * Overtime rules: hours past 8 in a day are daily overtime, and regular hours
+ * past 40 in a Monday-to-Sunday week are weekly overtime, so no hour is
+ * counted twice. Weeks cut by the period boundary only see the hours inside
+ * the period. Each day is paid at the user's rate in effect that day, from
+ * RateTableService.
+ */
+public class PayrollEngine {
+
+    static Logger logger = Logger.getRootLogger();
+
+    public static final double DAILY_OVERTIME_THRESHOLD = 8.0;
+    public static final double WEEKLY_OVERTIME_THRESHOLD = 40.0;
+    public static final double OVERTIME_MULTIPLIER = 1.5;
+
+    private static final int partitionSize = Dbfactory.getIntProperty("payroll.partitionSize", 256);
+
+    /**
+     * One line per user in users, ordered by name; users without entries in
+     * the period get a zero line.
+     */
+    public static List<PayrollLine> run(Date startDate, Date endDate) throws SQLException {
+        logger.info("PayrollEngine.run entering... " + startDate + " to " + endDate);
+
+        long started = System.currentTimeMillis();
+        RateTableService.RateIndex rates = RateTableService.getIndex();
+        WorkingCalendarService.WorkingCalendar calendar = WorkingCalendarService.getCalendar();
+        Timesheet[] timesheets;
+        try (Connection con = Dbfactory.getConnection()) {
+            timesheets = loadUsers(con);
+            readEntries(con, timesheets, startDate, endDate);
+        }
+        ForkJoinPool.commonPool().invoke(new PartitionTask(timesheets, rates, calendar,
+                (int) startDate.toLocalDate().toEpochDay(), (int) endDate.toLocalDate().toEpochDay(),
+                0, timesheets.length));
+
+        List<PayrollLine> lines = new ArrayList<>(timesheets.length);
+        for (Timesheet timesheet : timesheets) {
+            timesheet.line.setPeriodStart(startDate);
+            timesheet.line.setPeriodEnd(endDate);
+            lines.add(timesheet.line);
+        }
+        logger.info("PayrollEngine.run computed " + lines.size() + " lines in "
+                + (System.currentTimeMillis() - started) + " ms");
+        return lines;
+    }
+
+    /**
+     * Splits daily hour totals into regular, daily overtime and weekly
+     * overtime and prices each day at its own rate. Days must be in
+     * ascending order.
+     */
+    public static void computePay(PayrollLine line, int[] epochDays, double[] dailyHours, int dayCount,
+                                  RateTableService.Rates rates) {
+        double totalHours = 0;
+        double regularHours = 0;
+        double dailyOvertime = 0;
+        double weeklyOvertime = 0;
+        double regularPay = 0;
+        double overtimePay = 0;
+        long week = Long.MIN_VALUE;
+        double weekRegular = 0;
+
+        for (int i = 0; i < dayCount; i++) {
+            double hours = dailyHours[i];
+            totalHours += hours;
+
+            // epoch day 0 was a Thursday, +3 puts week boundaries on Mondays
+            long dayWeek = Math.floorDiv(epochDays[i] + 3L, 7L);
+            if (dayWeek != week) {
+                week = dayWeek;
+                weekRegular = 0;
+            }
+
+            double dayRegular = Math.min(hours, DAILY_OVERTIME_THRESHOLD);
+            dailyOvertime += hours - dayRegular;
+
+            double counted = Math.min(dayRegular, Math.max(0, WEEKLY_OVERTIME_THRESHOLD - weekRegular));
+            weeklyOvertime += dayRegular - counted;
+            weekRegular += dayRegular;
+            regularHours += counted;
+
+            double rate = rates.rateOn(epochDays[i]);
+            regularPay += counted * rate;
+            overtimePay += (hours - counted) * rate * OVERTIME_MULTIPLIER;
+        }
+
+        line.setTotalHours(totalHours);
+        line.setRegularHours(regularHours);
+        line.setDailyOvertimeHours(dailyOvertime);
+        line.setWeeklyOvertimeHours(weeklyOvertime);
+        line.setDaysWorked(dayCount);
+        line.setRegularPay(regularPay);
+        line.setOvertimePay(overtimePay);
+    }
+
+    private static Timesheet[] loadUsers(Connection con) throws SQLException {
+        List<Timesheet> timesheets = new ArrayList<>();
+        String sql = "SELECT id, fullname, email FROM reporting_system.users ORDER BY fullname";
+        try (PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                timesheets.add(new Timesheet(new PayrollLine(rs.getString("id"), rs.getString("fullname"),
+                        rs.getString("email"))));
+            }
+        }
+        return timesheets.toArray(new Timesheet[0]);
+    }
+
+    private static void readEntries(Connection con, Timesheet[] timesheets, Date startDate, Date endDate)
+            throws SQLException {
+        Map<String, Timesheet> byUser = new HashMap<>(timesheets.length * 2);
+        for (Timesheet timesheet : timesheets) {
+            byUser.put(timesheet.line.getUserId(), timesheet);
+        }
+
+        // work_date is DATE(start_time) on the server, the day every rollup-based report uses
+        String sql = "SELECT user_id, work_date, hours_worked, is_billable " +
+                    "FROM reporting_system.time_entries " +
+                    "WHERE start_time >= ? AND start_time < DATE_ADD(?, INTERVAL 1 DAY) " +
+                    "ORDER BY user_id, start_time";
+        try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setDate(1, startDate);
+            ps.setDate(2, endDate);
+            try (ResultSet rs = ps.executeQuery()) {
+                String currentUser = null;
+                Timesheet current = null;
+                while (rs.next()) {
+                    String userId = rs.getString(1);
+                    if (!userId.equals(currentUser)) {
+                        currentUser = userId;
+                        current = byUser.get(userId);
+                    }
+                    if (current == null) {
+                        continue;
+                    }
+                    int epochDay = (int) rs.getObject(2, LocalDate.class).toEpochDay();
+                    current.add(epochDay, rs.getDouble(3), rs.getBoolean(4));
+                }
+            }
+        }
+    }
+
+    private static final class Timesheet {
+
+        private final PayrollLine line;
+        private int[] days = new int[8];
+        private double[] hours = new double[8];
+        private int size;
+        private double billableHours;
+
+        private Timesheet(PayrollLine line) {
+            this.line = line;
+        }
+
+        private void add(int epochDay, double entryHours, boolean billable) {
+            if (size > 0 && days[size - 1] == epochDay) {
+                hours[size - 1] += entryHours;
+            } else {
+                if (size == days.length) {
+                    days = Arrays.copyOf(days, size * 2);
+                    hours = Arrays.copyOf(hours, size * 2);
+                }
+                days[size] = epochDay;
+                hours[size++] = entryHours;
+            }
+            if (billable) {
+                billableHours += entryHours;
+            }
+        }
+    }
+
+    private static final class PartitionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Timesheet[] timesheets;
+        private final RateTableService.RateIndex rates;
+        private final WorkingCalendarService.WorkingCalendar calendar;
+        private final int startDay;
+        private final int endDay;
+        private final int from;
+        private final int to;
+
+        private PartitionTask(Timesheet[] timesheets, RateTableService.RateIndex rates,
+                              WorkingCalendarService.WorkingCalendar calendar, int startDay, int endDay,
+                              int from, int to) {
+            this.timesheets = timesheets;
+            this.rates = rates;
+            this.calendar = calendar;
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= partitionSize) {
+                for (int i = from; i < to; i++) {
+                    Timesheet timesheet = timesheets[i];
+                    RateTableService.Rates userRates = rates.userRates(timesheet.line.getUserId());
+                    computePay(timesheet.line, timesheet.days, timesheet.hours, timesheet.size, userRates);
+                    timesheet.line.setBillableHours(timesheet.billableHours);
+                    timesheet.line.setHourlyRate(userRates.rateOn(endDay));
+                    timesheet.line.setAvailableHours(calendar.availableHours(timesheet.line.getUserId(),
+                            startDay, endDay));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PartitionTask(timesheets, rates, calendar, startDay, endDay, from, mid),
+                    new PartitionTask(timesheets, rates, calendar, startDay, endDay, mid, to));
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.services;
 
+import com.beans.PayrollLine;
 import com.db.Dbfactory;
 import org.apache.log4j.Logger;
 
-import java.sql.*;
+import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -15,242 +18,202 @@ public class PayrollExportService {
     static Logger logger = Logger.getRootLogger();
 
     public static String exportToCSV(Date startDate, Date endDate) throws SQLException {
-        logger.info("PayrollExportService.exportToCSV entering...");
-
-        StringBuilder csv = new StringBuilder();
-        Connection con = Dbfactory.getConnection();
-
+        StringWriter csv = new StringWriter();
         try {
-            csv.append("Employee ID,Employee Name,Regular Hours,Overtime Hours,Total Hours,")
-               .append("Billable Hours,Non-Billable Hours,Gross Pay,Period Start,Period End\n");
-
-            String sql = "SELECT u.id, u.fullname, " +
-                        "SUM(te.hours_worked) as total_hours, " +
-                        "SUM(CASE WHEN te.is_billable = true THEN te.hours_worked ELSE 0 END) as billable_hours, " +
-                        "SUM(CASE WHEN te.is_billable = false THEN te.hours_worked ELSE 0 END) as non_billable_hours " +
-                        "FROM reporting_system.users u " +
-                        "LEFT JOIN reporting_system.time_entries te ON u.id = te.user_id " +
-                        "AND te.start_time >= ? AND te.start_time <= ? " +
-                        "GROUP BY u.id, u.fullname " +
-                        "ORDER BY u.fullname";
-
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setDate(1, startDate);
-            preparedStmt.setDate(2, endDate);
-
-            ResultSet rs = preparedStmt.executeQuery();
-
-            while (rs.next()) {
-                String userId = rs.getString("id");
-                String userName = rs.getString("fullname");
-                double totalHours = rs.getDouble("total_hours");
-                double billableHours = rs.getDouble("billable_hours");
-                double nonBillableHours = rs.getDouble("non_billable_hours");
-
-                long days = (endDate.getTime() - startDate.getTime()) / (1000 * 60 * 60 * 24);
-                double standardHours = (days / 7.0) * 40.0;
-                double regularHours = Math.min(totalHours, standardHours);
-                double overtimeHours = Math.max(0, totalHours - standardHours);
-
-                double hourlyRate = 25.0;
-                double grossPay = (regularHours * hourlyRate) + (overtimeHours * hourlyRate * 1.5);
-
-                csv.append(userId).append(",")
-                   .append("\"").append(userName).append("\"").append(",")
-                   .append(String.format("%.2f", regularHours)).append(",")
-                   .append(String.format("%.2f", overtimeHours)).append(",")
-                   .append(String.format("%.2f", totalHours)).append(",")
-                   .append(String.format("%.2f", billableHours)).append(",")
-                   .append(String.format("%.2f", nonBillableHours)).append(",")
-                   .append(String.format("%.2f", grossPay)).append(",")
-                   .append(startDate).append(",")
-                   .append(endDate).append("\n");
-            }
-
-        } catch (Exception e) {
+            exportToCSV(startDate, endDate, csv);
+        } catch (IOException e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
-
         return csv.toString();
     }
 
-    public static List<Map<String, Object>> getPayrollSummary(Date startDate, Date endDate) throws SQLException {
-        logger.info("PayrollExportService.getPayrollSummary entering...");
-
-        List<Map<String, Object>> payrollList = new ArrayList<>();
-        Connection con = Dbfactory.getConnection();
-
-        try {
-            String sql = "SELECT u.id, u.fullname, u.email, " +
-                        "SUM(te.hours_worked) as total_hours, " +
-                        "SUM(CASE WHEN te.is_billable = true THEN te.hours_worked ELSE 0 END) as billable_hours, " +
-                        "SUM(CASE WHEN te.is_billable = false THEN te.hours_worked ELSE 0 END) as non_billable_hours, " +
-                        "COUNT(DISTINCT DATE(te.start_time)) as days_worked " +
-                        "FROM reporting_system.users u " +
-                        "LEFT JOIN reporting_system.time_entries te ON u.id = te.user_id " +
-                        "AND te.start_time >= ? AND te.start_time <= ? " +
-                        "GROUP BY u.id, u.fullname, u.email " +
-                        "ORDER BY u.fullname";
+    /**
+     * Writes the payroll CSV from one PayrollEngine run; rows go out as they
+     * are formatted, so only the per-employee lines are held in memory.
+     */
+    public static void exportToCSV(Date startDate, Date endDate, Writer out) throws SQLException, IOException {
+        logger.info("PayrollExportService.exportToCSV entering...");
 
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setDate(1, startDate);
-            preparedStmt.setDate(2, endDate);
+        CsvRowWriter csv = new CsvRowWriter(out);
+        out.write("Employee ID,Employee Name,Regular Hours,Overtime Hours,Total Hours," +
+                  "Billable Hours,Non-Billable Hours,Gross Pay,Period Start,Period End\n");
 
-            ResultSet rs = preparedStmt.executeQuery();
+        String periodStart = startDate.toString();
+        String periodEnd = endDate.toString();
+        for (PayrollLine line : PayrollEngine.run(startDate, endDate)) {
+            writePayrollRow(csv, line, periodStart, periodEnd);
+        }
+        csv.flush();
+    }
 
-            long days = (endDate.getTime() - startDate.getTime()) / (1000 * 60 * 60 * 24);
-            double standardHours = (days / 7.0) * 40.0;
+    /**
+     * One payroll CSV row from an engine line.
+     */
+    public static void writePayrollRow(CsvRowWriter csv, PayrollLine line, String periodStart, String periodEnd)
+            throws IOException {
+        csv.field(line.getUserId())
+           .quoted(line.getFullName())
+           .decimal2(line.getRegularHours())
+           .decimal2(line.getOvertimeHours())
+           .decimal2(line.getTotalHours())
+           .decimal2(line.getBillableHours())
+           .decimal2(line.getNonBillableHours())
+           .decimal2(line.getGrossPay())
+           .field(periodStart)
+           .field(periodEnd)
+           .endRow();
+    }
 
-            while (rs.next()) {
-                Map<String, Object> payroll = new HashMap<>();
-                String userId = rs.getString("id");
-                double totalHours = rs.getDouble("total_hours");
-                double billableHours = rs.getDouble("billable_hours");
-                double nonBillableHours = rs.getDouble("non_billable_hours");
+    public static List<Map<String, Object>> getPayrollSummary(Date startDate, Date endDate) throws SQLException {
+        logger.info("PayrollExportService.getPayrollSummary entering...");
 
-                double regularHours = Math.min(totalHours, standardHours);
-                double overtimeHours = Math.max(0, totalHours - standardHours);
+        List<Map<String, Object>> payrollList = new ArrayList<>();
 
-                double hourlyRate = 25.0;
-                double regularPay = regularHours * hourlyRate;
-                double overtimePay = overtimeHours * hourlyRate * 1.5;
-                double grossPay = regularPay + overtimePay;
+        for (PayrollLine line : getPayrollLines(startDate, endDate)) {
+            Map<String, Object> payroll = new HashMap<>();
+            payroll.put("employeeId", line.getUserId());
+            payroll.put("employeeName", line.getFullName());
+            payroll.put("email", line.getEmail());
+            payroll.put("totalHours", line.getTotalHours());
+            payroll.put("regularHours", line.getRegularHours());
+            payroll.put("overtimeHours", line.getOvertimeHours());
+            payroll.put("dailyOvertimeHours", line.getDailyOvertimeHours());
+            payroll.put("weeklyOvertimeHours", line.getWeeklyOvertimeHours());
+            payroll.put("billableHours", line.getBillableHours());
+            payroll.put("nonBillableHours", line.getNonBillableHours());
+            payroll.put("daysWorked", line.getDaysWorked());
+            payroll.put("availableHours", line.getAvailableHours());
+            payroll.put("hourlyRate", line.getHourlyRate());
+            payroll.put("regularPay", line.getRegularPay());
+            payroll.put("overtimePay", line.getOvertimePay());
+            payroll.put("grossPay", line.getGrossPay());
+            payroll.put("periodStart", line.getPeriodStart());
+            payroll.put("periodEnd", line.getPeriodEnd());
+
+            payrollList.add(payroll);
+        }
 
-                payroll.put("employeeId", userId);
-                payroll.put("employeeName", rs.getString("fullname"));
-                payroll.put("email", rs.getString("email"));
-                payroll.put("totalHours", totalHours);
-                payroll.put("regularHours", regularHours);
-                payroll.put("overtimeHours", overtimeHours);
-                payroll.put("billableHours", billableHours);
-                payroll.put("nonBillableHours", nonBillableHours);
-                payroll.put("daysWorked", rs.getInt("days_worked"));
-                payroll.put("hourlyRate", hourlyRate);
-                payroll.put("regularPay", regularPay);
-                payroll.put("overtimePay", overtimePay);
-                payroll.put("grossPay", grossPay);
-                payroll.put("periodStart", startDate);
-                payroll.put("periodEnd", endDate);
+        return payrollList;
+    }
 
-                payrollList.add(payroll);
-            }
+    /**
+     * getPayrollSummary as typed lines, without a map per employee.
+     */
+    public static List<PayrollLine> getPayrollLines(Date startDate, Date endDate) throws SQLException {
+        logger.info("PayrollExportService.getPayrollLines entering...");
 
+        try {
+            return PayrollEngine.run(startDate, endDate);
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
-
-        return payrollList;
+        return new ArrayList<>();
     }
 
     public static String exportProjectBillingToCSV(int projectId, Date startDate, Date endDate) throws SQLException {
+        StringWriter csv = new StringWriter();
+        try {
+            exportProjectBillingToCSV(projectId, startDate, endDate, csv);
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            e.printStackTrace();
+        }
+        return csv.toString();
+    }
+
+    public static void exportProjectBillingToCSV(int projectId, Date startDate, Date endDate, Writer out)
+            throws SQLException, IOException {
         logger.info("PayrollExportService.exportProjectBillingToCSV entering...");
 
-        StringBuilder csv = new StringBuilder();
-        Connection con = Dbfactory.getConnection();
+        CsvRowWriter csv = new CsvRowWriter(out);
 
-        try {
-            csv.append("Date,Employee Name,Hours Worked,Billable,Description,Amount\n");
+        // bill rate per entry date comes from the rate index, not a join on projects;
+        // fetched first because its first load borrows a connection of its own
+        RateTableService.Rates billRates = RateTableService.getIndex().projectRates(projectId);
+
+        try (Connection con = Dbfactory.getConnection()) {
+            out.write("Date,Employee Name,Hours Worked,Billable,Description,Amount\n");
 
-            String sql = "SELECT te.entry_id, DATE(te.start_time) as work_date, " +
-                        "u.fullname, te.hours_worked, te.is_billable, te.description, p.hourly_rate " +
+            String sql = "SELECT te.entry_id, te.work_date, " +
+                        "u.fullname, te.hours_worked, te.is_billable, te.description " +
                         "FROM reporting_system.time_entries te " +
                         "INNER JOIN reporting_system.users u ON te.user_id = u.id " +
-                        "INNER JOIN reporting_system.projects p ON te.project_id = p.project_id " +
-                        "WHERE te.project_id = ? AND te.start_time >= ? AND te.start_time <= ? " +
+                        "WHERE te.project_id = ? AND te.start_time >= ? AND te.start_time < DATE_ADD(?, INTERVAL 1 DAY) " +
                         "ORDER BY te.start_time";
 
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setInt(1, projectId);
-            preparedStmt.setDate(2, startDate);
-            preparedStmt.setDate(3, endDate);
-
-            ResultSet rs = preparedStmt.executeQuery();
-
-            while (rs.next()) {
-                Date workDate = rs.getDate("work_date");
-                String employeeName = rs.getString("fullname");
-                double hoursWorked = rs.getDouble("hours_worked");
-                boolean isBillable = rs.getBoolean("is_billable");
-                String description = rs.getString("description");
-                double hourlyRate = rs.getDouble("hourly_rate");
-                double amount = isBillable ? hoursWorked * hourlyRate : 0;
-
-                csv.append(workDate).append(",")
-                   .append("\"").append(employeeName).append("\"").append(",")
-                   .append(String.format("%.2f", hoursWorked)).append(",")
-                   .append(isBillable ? "Yes" : "No").append(",")
-                   .append("\"").append(description != null ? description : "").append("\"").append(",")
-                   .append(String.format("%.2f", amount)).append("\n");
+            try (PreparedStatement preparedStmt = prepareStreaming(con, sql)) {
+                preparedStmt.setInt(1, projectId);
+                preparedStmt.setDate(2, startDate);
+                preparedStmt.setDate(3, endDate);
+
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    while (rs.next()) {
+                        double hoursWorked = rs.getDouble("hours_worked");
+                        boolean isBillable = rs.getBoolean("is_billable");
+                        Date workDate = rs.getDate("work_date");
+                        double amount = isBillable ? hoursWorked * billRates.rateOn(workDate) : 0;
+
+                        csv.field(workDate.toString())
+                           .quoted(rs.getString("fullname"))
+                           .decimal2(hoursWorked)
+                           .field(isBillable ? "Yes" : "No")
+                           .quoted(rs.getString("description"))
+                           .decimal2(amount)
+                           .endRow();
+                    }
+                    csv.flush();
+                }
             }
-
-        } catch (Exception e) {
-            logger.error(e.getMessage());
-            e.printStackTrace();
-        } finally {
-            con.close();
         }
+    }
 
-        return csv.toString();
+    /**
+     * Forward-only statement with Connector/J's row streaming fetch size, so the
+     * driver hands rows over as they arrive instead of buffering the result.
+     */
+    private static PreparedStatement prepareStreaming(Connection con, String sql) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(Integer.MIN_VALUE);
+        return ps;
     }
 
     public static Map<String, Object> getPayrollTotals(Date startDate, Date endDate) throws SQLException {
         logger.info("PayrollExportService.getPayrollTotals entering...");
 
         Map<String, Object> totals = new HashMap<>();
-        Connection con = Dbfactory.getConnection();
 
         try {
-            String sql = "SELECT " +
-                        "COUNT(DISTINCT u.id) as employee_count, " +
-                        "SUM(te.hours_worked) as total_hours, " +
-                        "SUM(CASE WHEN te.is_billable = true THEN te.hours_worked ELSE 0 END) as billable_hours " +
-                        "FROM reporting_system.users u " +
-                        "LEFT JOIN reporting_system.time_entries te ON u.id = te.user_id " +
-                        "AND te.start_time >= ? AND te.start_time <= ?";
-
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setDate(1, startDate);
-            preparedStmt.setDate(2, endDate);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            if (rs.next()) {
-                int employeeCount = rs.getInt("employee_count");
-                double totalHours = rs.getDouble("total_hours");
-                double billableHours = rs.getDouble("billable_hours");
-
-                long days = (endDate.getTime() - startDate.getTime()) / (1000 * 60 * 60 * 24);
-                double standardHours = (days / 7.0) * 40.0 * employeeCount;
-                double overtimeHours = Math.max(0, totalHours - standardHours);
-                double regularHours = totalHours - overtimeHours;
-
-                double hourlyRate = 25.0;
-                double totalRegularPay = regularHours * hourlyRate;
-                double totalOvertimePay = overtimeHours * hourlyRate * 1.5;
-                double totalGrossPay = totalRegularPay + totalOvertimePay;
-
-                totals.put("employeeCount", employeeCount);
-                totals.put("totalHours", totalHours);
-                totals.put("regularHours", regularHours);
-                totals.put("overtimeHours", overtimeHours);
-                totals.put("billableHours", billableHours);
-                totals.put("totalRegularPay", totalRegularPay);
-                totals.put("totalOvertimePay", totalOvertimePay);
-                totals.put("totalGrossPay", totalGrossPay);
-                totals.put("periodStart", startDate);
-                totals.put("periodEnd", endDate);
+            List<PayrollLine> lines = PayrollEngine.run(startDate, endDate);
+            double totalHours = 0;
+            double regularHours = 0;
+            double overtimeHours = 0;
+            double billableHours = 0;
+            double totalRegularPay = 0;
+            double totalOvertimePay = 0;
+            for (PayrollLine line : lines) {
+                totalHours += line.getTotalHours();
+                regularHours += line.getRegularHours();
+                overtimeHours += line.getOvertimeHours();
+                billableHours += line.getBillableHours();
+                totalRegularPay += line.getRegularPay();
+                totalOvertimePay += line.getOvertimePay();
             }
 
+            totals.put("employeeCount", lines.size());
+            totals.put("totalHours", totalHours);
+            totals.put("regularHours", regularHours);
+            totals.put("overtimeHours", overtimeHours);
+            totals.put("billableHours", billableHours);
+            totals.put("totalRegularPay", totalRegularPay);
+            totals.put("totalOvertimePay", totalOvertimePay);
+            totals.put("totalGrossPay", totalRegularPay + totalOvertimePay);
+            totals.put("periodStart", startDate);
+            totals.put("periodEnd", endDate);
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return totals;
@@ -1,10 +1,12 @@
 package com.services;
 
+import com.beans.ContributionRow;
 import com.beans.Project;
 import com.db.Dbfactory;
 import org.apache.log4j.Logger;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -13,30 +15,44 @@ import java.util.Map;
 public class ProjectBudgetService {
 
     static Logger logger = Logger.getRootLogger();
+    private static final int BURN_WINDOW_DAYS = 30;
 
     public static boolean createProject(Project project) throws SQLException {
         logger.info("ProjectBudgetService.createProject entering...");
 
-        Connection con = Dbfactory.getConnection();
         try {
-            String sql = "INSERT INTO reporting_system.projects " +
-                        "(project_name, client_name, description, hourly_rate, budget_hours, status, project_manager) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?)";
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, project.getProjectName());
-            preparedStmt.setString(2, project.getClientName());
-            preparedStmt.setString(3, project.getDescription());
-            preparedStmt.setDouble(4, project.getHourlyRate());
-            preparedStmt.setDouble(5, project.getBudgetHours());
-            preparedStmt.setString(6, project.getStatus());
-            preparedStmt.setString(7, project.getProjectManager());
-            preparedStmt.execute();
+            try (Connection con = Dbfactory.getConnection()) {
+                String sql = "INSERT INTO reporting_system.projects " +
+                            "(project_name, client_name, description, hourly_rate, budget_hours, status, project_manager) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+                try (PreparedStatement preparedStmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    preparedStmt.setString(1, project.getProjectName());
+                    preparedStmt.setString(2, project.getClientName());
+                    preparedStmt.setString(3, project.getDescription());
+                    preparedStmt.setDouble(4, project.getHourlyRate());
+                    preparedStmt.setDouble(5, project.getBudgetHours());
+                    preparedStmt.setString(6, project.getStatus());
+                    preparedStmt.setString(7, project.getProjectManager());
+                    preparedStmt.execute();
+                    ProjectBurnIndex burn = ProjectBurnIndex.ifLoaded();
+                    try (ResultSet keys = preparedStmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            int projectId = keys.getInt(1);
+                            if (burn != null) {
+                                burn.recordProject(projectId, project.getProjectName(), project.getBudgetHours());
+                            }
+                            BudgetAlertService.recordProject(projectId, project.getProjectName(),
+                                    project.getBudgetHours());
+                        }
+                    }
+                }
+            }
+            // the new project's base bill rate
+            RateTableService.reload();
             return true;
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
         return false;
     }
@@ -45,58 +61,57 @@ public class ProjectBudgetService {
         logger.info("ProjectBudgetService.getBudgetVsActual entering...");
 
         Map<String, Object> budgetData = new HashMap<>();
-        Connection con = Dbfactory.getConnection();
 
-        try {
+        try (Connection con = Dbfactory.getConnection()) {
             String sql = "SELECT p.project_id, p.project_name, p.client_name, " +
                         "p.hourly_rate, p.budget_hours, p.status, " +
-                        "SUM(te.hours_worked) as actual_hours, " +
-                        "SUM(CASE WHEN te.is_billable = true THEN te.hours_worked ELSE 0 END) as billable_hours, " +
-                        "COUNT(DISTINCT te.user_id) as team_size " +
+                        "SUM(r.total_hours) as actual_hours, " +
+                        "SUM(r.billable_hours) as billable_hours, " +
+                        "COUNT(DISTINCT r.user_id) as team_size " +
                         "FROM reporting_system.projects p " +
-                        "LEFT JOIN reporting_system.time_entries te ON p.project_id = te.project_id " +
+                        "LEFT JOIN reporting_system.time_entry_daily_rollup r ON p.project_id = r.project_id " +
                         "WHERE p.project_id = ? " +
                         "GROUP BY p.project_id, p.project_name, p.client_name, p.hourly_rate, p.budget_hours, p.status";
 
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setInt(1, projectId);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            if (rs.next()) {
-                double budgetHours = rs.getDouble("budget_hours");
-                double actualHours = rs.getDouble("actual_hours");
-                double billableHours = rs.getDouble("billable_hours");
-                double hourlyRate = rs.getDouble("hourly_rate");
-
-                double budgetAmount = budgetHours * hourlyRate;
-                double actualAmount = actualHours * hourlyRate;
-                double billableAmount = billableHours * hourlyRate;
-                double variance = budgetHours - actualHours;
-                double varianceAmount = budgetAmount - actualAmount;
-                double percentUsed = (actualHours / budgetHours) * 100;
-
-                budgetData.put("projectId", rs.getInt("project_id"));
-                budgetData.put("projectName", rs.getString("project_name"));
-                budgetData.put("clientName", rs.getString("client_name"));
-                budgetData.put("status", rs.getString("status"));
-                budgetData.put("hourlyRate", hourlyRate);
-                budgetData.put("budgetHours", budgetHours);
-                budgetData.put("actualHours", actualHours);
-                budgetData.put("billableHours", billableHours);
-                budgetData.put("budgetAmount", budgetAmount);
-                budgetData.put("actualAmount", actualAmount);
-                budgetData.put("billableAmount", billableAmount);
-                budgetData.put("varianceHours", variance);
-                budgetData.put("varianceAmount", varianceAmount);
-                budgetData.put("percentUsed", percentUsed);
-                budgetData.put("teamSize", rs.getInt("team_size"));
-                budgetData.put("isOverBudget", actualHours > budgetHours);
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setInt(1, projectId);
+
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    if (rs.next()) {
+                        double budgetHours = rs.getDouble("budget_hours");
+                        double actualHours = rs.getDouble("actual_hours");
+                        double billableHours = rs.getDouble("billable_hours");
+                        double hourlyRate = rs.getDouble("hourly_rate");
+
+                        double budgetAmount = budgetHours * hourlyRate;
+                        double actualAmount = actualHours * hourlyRate;
+                        double billableAmount = billableHours * hourlyRate;
+                        double variance = budgetHours - actualHours;
+                        double varianceAmount = budgetAmount - actualAmount;
+                        double percentUsed = budgetHours > 0 ? (actualHours / budgetHours) * 100 : 0;
+
+                        budgetData.put("projectId", rs.getInt("project_id"));
+                        budgetData.put("projectName", rs.getString("project_name"));
+                        budgetData.put("clientName", rs.getString("client_name"));
+                        budgetData.put("status", rs.getString("status"));
+                        budgetData.put("hourlyRate", hourlyRate);
+                        budgetData.put("budgetHours", budgetHours);
+                        budgetData.put("actualHours", actualHours);
+                        budgetData.put("billableHours", billableHours);
+                        budgetData.put("budgetAmount", budgetAmount);
+                        budgetData.put("actualAmount", actualAmount);
+                        budgetData.put("billableAmount", billableAmount);
+                        budgetData.put("varianceHours", variance);
+                        budgetData.put("varianceAmount", varianceAmount);
+                        budgetData.put("percentUsed", percentUsed);
+                        budgetData.put("teamSize", rs.getInt("team_size"));
+                        budgetData.put("isOverBudget", actualHours > budgetHours);
+                    }
+                }
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return budgetData;
@@ -106,167 +121,191 @@ public class ProjectBudgetService {
         logger.info("ProjectBudgetService.getAllProjectsBudgetStatus entering...");
 
         List<Map<String, Object>> projectsList = new ArrayList<>();
-        Connection con = Dbfactory.getConnection();
 
-        try {
+        try (Connection con = Dbfactory.getConnection()) {
             String sql = "SELECT p.project_id, p.project_name, p.client_name, " +
                         "p.hourly_rate, p.budget_hours, p.status, " +
-                        "COALESCE(SUM(te.hours_worked), 0) as actual_hours, " +
-                        "COALESCE(SUM(CASE WHEN te.is_billable = true THEN te.hours_worked ELSE 0 END), 0) as billable_hours " +
+                        "COALESCE(SUM(r.total_hours), 0) as actual_hours, " +
+                        "COALESCE(SUM(r.billable_hours), 0) as billable_hours " +
                         "FROM reporting_system.projects p " +
-                        "LEFT JOIN reporting_system.time_entries te ON p.project_id = te.project_id " +
+                        "LEFT JOIN reporting_system.time_entry_daily_rollup r ON p.project_id = r.project_id " +
                         "GROUP BY p.project_id, p.project_name, p.client_name, p.hourly_rate, p.budget_hours, p.status " +
                         "ORDER BY p.project_name";
 
-            Statement st = con.createStatement();
-            ResultSet rs = st.executeQuery(sql);
-
-            while (rs.next()) {
-                Map<String, Object> project = new HashMap<>();
-                double budgetHours = rs.getDouble("budget_hours");
-                double actualHours = rs.getDouble("actual_hours");
-                double billableHours = rs.getDouble("billable_hours");
-                double hourlyRate = rs.getDouble("hourly_rate");
-
-                double percentUsed = budgetHours > 0 ? (actualHours / budgetHours) * 100 : 0;
-                double remainingHours = budgetHours - actualHours;
-
-                project.put("projectId", rs.getInt("project_id"));
-                project.put("projectName", rs.getString("project_name"));
-                project.put("clientName", rs.getString("client_name"));
-                project.put("status", rs.getString("status"));
-                project.put("budgetHours", budgetHours);
-                project.put("actualHours", actualHours);
-                project.put("billableHours", billableHours);
-                project.put("remainingHours", remainingHours);
-                project.put("percentUsed", percentUsed);
-                project.put("budgetAmount", budgetHours * hourlyRate);
-                project.put("actualAmount", actualHours * hourlyRate);
-                project.put("isOverBudget", actualHours > budgetHours);
-                projectsList.add(project);
+            try (Statement st = con.createStatement()) {
+                try (ResultSet rs = st.executeQuery(sql)) {
+                    while (rs.next()) {
+                        Map<String, Object> project = new HashMap<>();
+                        double budgetHours = rs.getDouble("budget_hours");
+                        double actualHours = rs.getDouble("actual_hours");
+                        double billableHours = rs.getDouble("billable_hours");
+                        double hourlyRate = rs.getDouble("hourly_rate");
+
+                        double percentUsed = budgetHours > 0 ? (actualHours / budgetHours) * 100 : 0;
+                        double remainingHours = budgetHours - actualHours;
+
+                        project.put("projectId", rs.getInt("project_id"));
+                        project.put("projectName", rs.getString("project_name"));
+                        project.put("clientName", rs.getString("client_name"));
+                        project.put("status", rs.getString("status"));
+                        project.put("budgetHours", budgetHours);
+                        project.put("actualHours", actualHours);
+                        project.put("billableHours", billableHours);
+                        project.put("remainingHours", remainingHours);
+                        project.put("percentUsed", percentUsed);
+                        project.put("budgetAmount", budgetHours * hourlyRate);
+                        project.put("actualAmount", actualHours * hourlyRate);
+                        project.put("isOverBudget", actualHours > budgetHours);
+                        projectsList.add(project);
+                    }
+                }
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return projectsList;
     }
 
+    /**
+     * Daily and cumulative hours over the range from the burn index, plus the
+     * project's burn status at endDate over a 30 day window.
+     */
     public static Map<String, Object> getProjectMilestones(int projectId, Date startDate, Date endDate) throws SQLException {
         logger.info("ProjectBudgetService.getProjectMilestones entering...");
 
         Map<String, Object> milestoneData = new HashMap<>();
-        Connection con = Dbfactory.getConnection();
 
         try {
-            String sql = "SELECT DATE(start_time) as work_date, " +
-                        "SUM(hours_worked) as daily_hours, " +
-                        "SUM(SUM(hours_worked)) OVER (ORDER BY DATE(start_time)) as cumulative_hours " +
-                        "FROM reporting_system.time_entries " +
-                        "WHERE project_id = ? AND start_time >= ? AND start_time <= ? " +
-                        "GROUP BY DATE(start_time) " +
-                        "ORDER BY work_date";
-
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setInt(1, projectId);
-            preparedStmt.setDate(2, startDate);
-            preparedStmt.setDate(3, endDate);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            List<Map<String, Object>> dailyProgress = new ArrayList<>();
+            ProjectBurnIndex burn = ProjectBurnIndex.getInstance();
+            int fromDay = (int) startDate.toLocalDate().toEpochDay();
+            int toDay = (int) endDate.toLocalDate().toEpochDay();
 
-            while (rs.next()) {
+            List<Map<String, Object>> dailyProgress = new ArrayList<>();
+            double[] cumulativeHours = {0};
+            burn.forEachDay(projectId, fromDay, toDay, (day, dailyHours) -> {
+                cumulativeHours[0] += dailyHours;
                 Map<String, Object> daily = new HashMap<>();
-                daily.put("date", rs.getDate("work_date"));
-                daily.put("dailyHours", rs.getDouble("daily_hours"));
-                daily.put("cumulativeHours", rs.getDouble("cumulative_hours"));
+                daily.put("date", Date.valueOf(LocalDate.ofEpochDay(day)));
+                daily.put("dailyHours", dailyHours);
+                daily.put("cumulativeHours", cumulativeHours[0]);
                 dailyProgress.add(daily);
-            }
+            });
 
+            milestoneData.putAll(burn.burnStatus(projectId, endDate, BURN_WINDOW_DAYS));
             milestoneData.put("projectId", projectId);
             milestoneData.put("dailyProgress", dailyProgress);
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return milestoneData;
     }
 
+    public static Map<String, Object> getBurnStatus(int projectId, Date asOf, int windowDays) throws SQLException {
+        logger.info("ProjectBudgetService.getBurnStatus entering...");
+
+        return ProjectBurnIndex.getInstance().burnStatus(projectId, asOf, windowDays);
+    }
+
+    public static List<Map<String, Object>> getBurnDown(Date asOf, int windowDays) throws SQLException {
+        logger.info("ProjectBudgetService.getBurnDown entering...");
+
+        return ProjectBurnIndex.getInstance().burnDown(asOf, windowDays);
+    }
+
     public static List<Map<String, Object>> getProjectTeamContribution(int projectId) throws SQLException {
         logger.info("ProjectBudgetService.getProjectTeamContribution entering...");
 
         List<Map<String, Object>> teamContribution = new ArrayList<>();
-        Connection con = Dbfactory.getConnection();
+        for (ContributionRow row : getTeamContributionRows(projectId)) {
+            Map<String, Object> member = new HashMap<>();
+            member.put("userId", row.getUserId());
+            member.put("userName", row.getUserName());
+            member.put("totalHours", row.getTotalHours());
+            member.put("billableHours", row.getBillableHours());
+            member.put("entryCount", row.getEntryCount());
+            member.put("contributionPercentage", row.getContributionPercentage());
+            teamContribution.add(member);
+        }
+        return teamContribution;
+    }
 
-        try {
+    /**
+     * getProjectTeamContribution as typed rows, without a map per member.
+     */
+    public static List<ContributionRow> getTeamContributionRows(int projectId) throws SQLException {
+        logger.info("ProjectBudgetService.getTeamContributionRows entering...");
+
+        List<ContributionRow> teamContribution = new ArrayList<>();
+
+        try (Connection con = Dbfactory.getConnection()) {
             String sql = "SELECT u.id, u.fullname, " +
-                        "SUM(te.hours_worked) as total_hours, " +
-                        "SUM(CASE WHEN te.is_billable = true THEN te.hours_worked ELSE 0 END) as billable_hours, " +
-                        "COUNT(te.entry_id) as entry_count " +
+                        "SUM(r.total_hours) as total_hours, " +
+                        "SUM(r.billable_hours) as billable_hours, " +
+                        "SUM(r.entry_count) as entry_count " +
                         "FROM reporting_system.users u " +
-                        "INNER JOIN reporting_system.time_entries te ON u.id = te.user_id " +
-                        "WHERE te.project_id = ? " +
+                        "INNER JOIN reporting_system.time_entry_daily_rollup r ON u.id = r.user_id " +
+                        "WHERE r.project_id = ? " +
                         "GROUP BY u.id, u.fullname " +
                         "ORDER BY total_hours DESC";
 
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setInt(1, projectId);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            double totalProjectHours = 0;
-
-            List<Map<String, Object>> tempList = new ArrayList<>();
-            while (rs.next()) {
-                Map<String, Object> member = new HashMap<>();
-                double hours = rs.getDouble("total_hours");
-                totalProjectHours += hours;
-
-                member.put("userId", rs.getString("id"));
-                member.put("userName", rs.getString("fullname"));
-                member.put("totalHours", hours);
-                member.put("billableHours", rs.getDouble("billable_hours"));
-                member.put("entryCount", rs.getInt("entry_count"));
-                tempList.add(member);
-            }
-
-            for (Map<String, Object> member : tempList) {
-                double hours = (double) member.get("totalHours");
-                member.put("contributionPercentage", (hours / totalProjectHours) * 100);
-                teamContribution.add(member);
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setInt(1, projectId);
+
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    double totalProjectHours = 0;
+                    while (rs.next()) {
+                        double hours = rs.getDouble("total_hours");
+                        totalProjectHours += hours;
+                        teamContribution.add(new ContributionRow(rs.getString("id"), rs.getString("fullname"),
+                                hours, rs.getDouble("billable_hours"), rs.getInt("entry_count")));
+                    }
+                    applyContributionShares(teamContribution, totalProjectHours);
+                }
             }
 
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return teamContribution;
     }
 
+    /**
+     * Sets each member's share of the project's hours as contributionPercentage.
+     */
+    public static List<ContributionRow> applyContributionShares(List<ContributionRow> members,
+                                                                double totalProjectHours) {
+        for (ContributionRow member : members) {
+            member.setContributionPercentage(totalProjectHours > 0
+                    ? (member.getTotalHours() / totalProjectHours) * 100 : 0);
+        }
+        return members;
+    }
+
     public static boolean updateProjectBudget(int projectId, double newBudgetHours) throws SQLException {
         logger.info("ProjectBudgetService.updateProjectBudget entering...");
 
-        Connection con = Dbfactory.getConnection();
-        try {
+        try (Connection con = Dbfactory.getConnection()) {
             String sql = "UPDATE reporting_system.projects SET budget_hours = ? WHERE project_id = ?";
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setDouble(1, newBudgetHours);
-            preparedStmt.setInt(2, projectId);
-            preparedStmt.execute();
-            return true;
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setDouble(1, newBudgetHours);
+                preparedStmt.setInt(2, projectId);
+                preparedStmt.execute();
+                ProjectBurnIndex burn = ProjectBurnIndex.ifLoaded();
+                if (burn != null) {
+                    burn.setBudget(projectId, newBudgetHours);
+                }
+                BudgetAlertService.setBudget(projectId, newBudgetHours);
+                return true;
+            }
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
         return false;
     }
@@ -0,0 +1,301 @@
+package com.services;
+
+import com.beans.TimeEntry;
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-project cumulative hours as a Fenwick tree over days, loaded once from
+ * time_entry_daily_rollup and updated on every time entry written through the
+ * services. Hours up to a date, hours in a range, remaining budget and burn
+ * rate are O(log n) in the project's span of days instead of a window query
+ * over its whole history.
+ *
+ * Writes start reaching the index before its initial load and are held until
+ * the load finishes, so entries committed while it runs are not lost.
+ */
+public class ProjectBurnIndex {
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static volatile ProjectBurnIndex instance;
+    // the index being loaded, or the loaded one; what the write hooks see
+    private static volatile ProjectBurnIndex recording;
+
+    public interface DayVisitor {
+        void visit(int epochDay, double hours);
+    }
+
+    private final Map<Integer, ProjectBurn> projects = new ConcurrentHashMap<>();
+    // writes made during the initial load, applied after it; null once loaded
+    private List<Runnable> pending = new ArrayList<>();
+
+    /**
+     * The index, loading it on first use.
+     */
+    public static ProjectBurnIndex getInstance() throws SQLException {
+        ProjectBurnIndex current = instance;
+        if (current == null) {
+            synchronized (ProjectBurnIndex.class) {
+                current = instance;
+                if (current == null) {
+                    current = new ProjectBurnIndex();
+                    recording = current;
+                    try {
+                        current.load();
+                    } catch (SQLException e) {
+                        recording = null;
+                        throw e;
+                    }
+                    current.applyPending();
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * The index if it has been loaded or is loading; write hooks use this so
+     * a write never triggers the initial load.
+     */
+    static ProjectBurnIndex ifLoaded() {
+        return recording;
+    }
+
+    private void load() throws SQLException {
+        long started = System.currentTimeMillis();
+        try (Connection con = Dbfactory.getConnection()) {
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT project_id, project_name, budget_hours FROM reporting_system.projects");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ProjectBurn burn = project(rs.getInt(1));
+                    burn.name = rs.getString(2);
+                    burn.budgetHours = rs.getDouble(3);
+                }
+            }
+            String sql = "SELECT project_id, work_date, SUM(total_hours) " +
+                        "FROM reporting_system.time_entry_daily_rollup " +
+                        "GROUP BY project_id, work_date";
+            try (PreparedStatement ps = con.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    project(rs.getInt(1)).add((int) rs.getDate(2).toLocalDate().toEpochDay(), rs.getDouble(3));
+                }
+            }
+        }
+        logger.info("ProjectBurnIndex loaded " + projects.size() + " projects in "
+                + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    private synchronized void applyPending() {
+        for (Runnable write : pending) {
+            write.run();
+        }
+        logger.info("ProjectBurnIndex applied " + pending.size() + " writes made during the load");
+        pending = null;
+    }
+
+    private void apply(Runnable write) {
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(write);
+                return;
+            }
+        }
+        write.run();
+    }
+
+    public void recordEntry(int projectId, Timestamp startTime, double hours) {
+        int day = (int) startTime.toLocalDateTime().toLocalDate().toEpochDay();
+        apply(() -> project(projectId).add(day, hours));
+    }
+
+    public void recordEntries(List<TimeEntry> entries) {
+        for (TimeEntry entry : entries) {
+            recordEntry(entry.getProjectId(), entry.getStartTime(), entry.getHoursWorked());
+        }
+    }
+
+    public void recordProject(int projectId, String name, double budgetHours) {
+        apply(() -> {
+            ProjectBurn burn = project(projectId);
+            burn.name = name;
+            burn.budgetHours = budgetHours;
+        });
+    }
+
+    public void setBudget(int projectId, double budgetHours) {
+        apply(() -> project(projectId).budgetHours = budgetHours);
+    }
+
+    /**
+     * Hours logged on the project up to and including the day.
+     */
+    public double cumulativeHours(int projectId, int epochDay) {
+        ProjectBurn burn = projects.get(projectId);
+        return burn == null ? 0 : burn.prefix(epochDay);
+    }
+
+    public double hoursBetween(int projectId, int fromDay, int toDay) {
+        ProjectBurn burn = projects.get(projectId);
+        return burn == null || toDay < fromDay ? 0 : burn.prefix(toDay) - burn.prefix(fromDay - 1);
+    }
+
+    public double hoursOn(int projectId, int epochDay) {
+        ProjectBurn burn = projects.get(projectId);
+        return burn == null ? 0 : burn.daily(epochDay);
+    }
+
+    /**
+     * Visits the days in the range that have hours on the project, in order.
+     * Only the part of the range inside the project's span is walked.
+     */
+    public void forEachDay(int projectId, int fromDay, int toDay, DayVisitor visitor) {
+        ProjectBurn burn = projects.get(projectId);
+        if (burn != null) {
+            burn.forEachDay(fromDay, toDay, visitor);
+        }
+    }
+
+    /**
+     * Budget, hours to date, remaining hours and the average hours per day
+     * over the trailing window, with the date the budget runs out at that
+     * rate.
+     */
+    public Map<String, Object> burnStatus(int projectId, Date asOf, int windowDays) {
+        ProjectBurn burn = projects.get(projectId);
+        int day = (int) asOf.toLocalDate().toEpochDay();
+        windowDays = Math.max(1, windowDays);
+        double budgetHours = burn == null ? 0 : burn.budgetHours;
+        double hoursToDate = cumulativeHours(projectId, day);
+        double remainingHours = budgetHours - hoursToDate;
+        double burnRate = hoursBetween(projectId, day - windowDays + 1, day) / windowDays;
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("projectId", projectId);
+        status.put("projectName", burn == null ? null : burn.name);
+        status.put("asOf", asOf);
+        status.put("budgetHours", budgetHours);
+        status.put("hoursToDate", hoursToDate);
+        status.put("remainingHours", remainingHours);
+        status.put("burnRate", burnRate);
+        status.put("percentUsed", budgetHours > 0 ? (hoursToDate / budgetHours) * 100 : 0);
+        if (burnRate > 0 && remainingHours > 0) {
+            long daysLeft = (long) Math.ceil(remainingHours / burnRate);
+            status.put("projectedExhaustion", Date.valueOf(LocalDate.ofEpochDay(day + daysLeft)));
+        }
+        return status;
+    }
+
+    /**
+     * burnStatus for every project, most of its budget used first.
+     */
+    public List<Map<String, Object>> burnDown(Date asOf, int windowDays) {
+        List<Map<String, Object>> statuses = new ArrayList<>();
+        for (Integer projectId : projects.keySet()) {
+            statuses.add(burnStatus(projectId, asOf, windowDays));
+        }
+        statuses.sort((a, b) -> Double.compare((double) b.get("percentUsed"), (double) a.get("percentUsed")));
+        return statuses;
+    }
+
+    private ProjectBurn project(int projectId) {
+        return projects.computeIfAbsent(projectId, k -> new ProjectBurn());
+    }
+
+    /**
+     * One project's hours per day from baseDay, as raw daily values and a
+     * 1-based Fenwick tree over them. Grows by doubling when an entry falls
+     * outside the current span.
+     */
+    static final class ProjectBurn {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        volatile String name;
+        volatile double budgetHours;
+
+        private int baseDay;
+        private double[] daily = new double[0];
+        private double[] tree = new double[1];
+
+        synchronized void add(int day, double hours) {
+            ensureSpan(day);
+            int i = day - baseDay;
+            daily[i] += hours;
+            for (int j = i + 1; j < tree.length; j += j & -j) {
+                tree[j] += hours;
+            }
+        }
+
+        synchronized double prefix(int day) {
+            if (daily.length == 0 || day < baseDay) {
+                return 0;
+            }
+            double sum = 0;
+            for (int j = Math.min(day - baseDay, daily.length - 1) + 1; j > 0; j -= j & -j) {
+                sum += tree[j];
+            }
+            return sum;
+        }
+
+        synchronized double daily(int day) {
+            int i = day - baseDay;
+            return i < 0 || i >= daily.length ? 0 : daily[i];
+        }
+
+        synchronized void forEachDay(int fromDay, int toDay, DayVisitor visitor) {
+            int last = Math.min(toDay - baseDay, daily.length - 1);
+            for (int i = Math.max(fromDay - baseDay, 0); i <= last; i++) {
+                if (daily[i] != 0) {
+                    visitor.visit(baseDay + i, daily[i]);
+                }
+            }
+        }
+
+        private void ensureSpan(int day) {
+            if (daily.length == 0) {
+                baseDay = day;
+                rebuild(new double[INITIAL_CAPACITY]);
+                return;
+            }
+            if (day >= baseDay && day < baseDay + daily.length) {
+                return;
+            }
+            int first = Math.min(baseDay, day);
+            int last = Math.max(baseDay + daily.length - 1, day);
+            int capacity = daily.length;
+            while (capacity < last - first + 1) {
+                capacity *= 2;
+            }
+            // entries before the span move the base back with room for more
+            int newBase = day < baseDay ? last - capacity + 1 : baseDay;
+            double[] values = new double[capacity];
+            System.arraycopy(daily, 0, values, baseDay - newBase, daily.length);
+            baseDay = newBase;
+            rebuild(values);
+        }
+
+        private void rebuild(double[] values) {
+            daily = values;
+            tree = new double[values.length + 1];
+            for (int i = 1; i <= values.length; i++) {
+                tree[i] += values[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= values.length) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.services;
+
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Effective-dated user pay rates and project bill rates. Both tables are
+ * loaded into an immutable RateIndex of sorted effective-date arrays per key,
+ * so payroll and billing resolve the rate for an entry's date with a binary
+ * search instead of a join per row. Every change reloads the tables and swaps
+ * the whole index in one volatile write; readers keep whichever index they
+ * started with.
+ */
+public class RateTableService {
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static final double defaultPayRate = Double.parseDouble(Dbfactory.getProperty("payroll.hourlyRate", "25.0"));
+
+    private static volatile RateIndex index;
+
+    /**
+     * The current index, loading it on first use.
+     */
+    public static RateIndex getIndex() throws SQLException {
+        RateIndex current = index;
+        if (current == null) {
+            synchronized (RateTableService.class) {
+                current = index;
+                if (current == null) {
+                    current = load();
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Rebuilds the index from the tables and publishes it. Writers are
+     * serialized so an older load never replaces a newer one.
+     */
+    public static synchronized RateIndex reload() throws SQLException {
+        RateIndex current = load();
+        index = current;
+        return current;
+    }
+
+    public static boolean setUserPayRate(String userId, Date effectiveFrom, double hourlyRate) throws SQLException {
+        logger.info("RateTableService.setUserPayRate entering...");
+
+        return upsert("INSERT INTO reporting_system.user_pay_rates (user_id, effective_from, hourly_rate) " +
+                "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE hourly_rate = VALUES(hourly_rate)",
+                userId, effectiveFrom, hourlyRate);
+    }
+
+    public static boolean setProjectBillRate(int projectId, Date effectiveFrom, double hourlyRate) throws SQLException {
+        logger.info("RateTableService.setProjectBillRate entering...");
+
+        return upsert("INSERT INTO reporting_system.project_bill_rates (project_id, effective_from, hourly_rate) " +
+                "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE hourly_rate = VALUES(hourly_rate)",
+                projectId, effectiveFrom, hourlyRate);
+    }
+
+    public static List<Map<String, Object>> getUserPayRates(String userId) throws SQLException {
+        logger.info("RateTableService.getUserPayRates entering...");
+
+        return getIndex().userRates(userId).toList();
+    }
+
+    public static List<Map<String, Object>> getProjectBillRates(int projectId) throws SQLException {
+        logger.info("RateTableService.getProjectBillRates entering...");
+
+        return getIndex().projectRates(projectId).toList();
+    }
+
+    private static boolean upsert(String sql, Object key, Date effectiveFrom, double hourlyRate) {
+        try {
+            try (Connection con = Dbfactory.getConnection()) {
+                try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                    preparedStmt.setObject(1, key);
+                    preparedStmt.setDate(2, effectiveFrom);
+                    preparedStmt.setDouble(3, hourlyRate);
+                    preparedStmt.execute();
+                }
+            }
+            reload();
+            return true;
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    private static RateIndex load() throws SQLException {
+        long started = System.currentTimeMillis();
+        Map<String, Rates> userRates = new HashMap<>();
+        Map<Integer, Rates> projectRates = new HashMap<>();
+
+        try (Connection con = Dbfactory.getConnection()) {
+            Map<String, RatesBuilder> users = new HashMap<>();
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT user_id, effective_from, hourly_rate FROM reporting_system.user_pay_rates " +
+                    "ORDER BY user_id, effective_from");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    users.computeIfAbsent(rs.getString(1), k -> new RatesBuilder(defaultPayRate))
+                         .add(rs.getDate(2), rs.getDouble(3));
+                }
+            }
+            for (Map.Entry<String, RatesBuilder> entry : users.entrySet()) {
+                userRates.put(entry.getKey(), entry.getValue().build());
+            }
+
+            // projects.hourly_rate is the rate before a project's first dated row
+            Map<Integer, RatesBuilder> projects = new HashMap<>();
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT project_id, hourly_rate FROM reporting_system.projects");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    projects.put(rs.getInt(1), new RatesBuilder(rs.getDouble(2)));
+                }
+            }
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT project_id, effective_from, hourly_rate FROM reporting_system.project_bill_rates " +
+                    "ORDER BY project_id, effective_from");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    projects.computeIfAbsent(rs.getInt(1), k -> new RatesBuilder(0))
+                            .add(rs.getDate(2), rs.getDouble(3));
+                }
+            }
+            for (Map.Entry<Integer, RatesBuilder> entry : projects.entrySet()) {
+                projectRates.put(entry.getKey(), entry.getValue().build());
+            }
+        }
+
+        logger.info("RateTableService loaded rates for " + userRates.size() + " users and "
+                + projectRates.size() + " projects in " + (System.currentTimeMillis() - started) + " ms");
+        return new RateIndex(userRates, projectRates, Rates.flat(defaultPayRate), Rates.flat(0));
+    }
+
+    /**
+     * Immutable snapshot of both rate tables.
+     */
+    public static final class RateIndex {
+
+        private final Map<String, Rates> userRates;
+        private final Map<Integer, Rates> projectRates;
+        private final Rates defaultUserRates;
+        private final Rates defaultProjectRates;
+
+        private RateIndex(Map<String, Rates> userRates, Map<Integer, Rates> projectRates,
+                          Rates defaultUserRates, Rates defaultProjectRates) {
+            this.userRates = userRates;
+            this.projectRates = projectRates;
+            this.defaultUserRates = defaultUserRates;
+            this.defaultProjectRates = defaultProjectRates;
+        }
+
+        /**
+         * A user's pay rate history; users without rows get the default rate.
+         */
+        public Rates userRates(String userId) {
+            return userRates.getOrDefault(userId, defaultUserRates);
+        }
+
+        /**
+         * A project's bill rate history; unknown projects bill at 0.
+         */
+        public Rates projectRates(int projectId) {
+            return projectRates.getOrDefault(projectId, defaultProjectRates);
+        }
+    }
+
+    /**
+     * One key's rates as parallel arrays sorted by effective epoch day.
+     */
+    public static final class Rates {
+
+        private final double baseRate;
+        private final int[] effectiveDays;
+        private final double[] rates;
+
+        Rates(double baseRate, int[] effectiveDays, double[] rates) {
+            this.baseRate = baseRate;
+            this.effectiveDays = effectiveDays;
+            this.rates = rates;
+        }
+
+        public static Rates flat(double rate) {
+            return new Rates(rate, new int[0], new double[0]);
+        }
+
+        /**
+         * The rate of the latest row effective on or before the day.
+         */
+        public double rateOn(int epochDay) {
+            int i = Arrays.binarySearch(effectiveDays, epochDay);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return i < 0 ? baseRate : rates[i];
+        }
+
+        public double rateOn(Date date) {
+            return rateOn((int) date.toLocalDate().toEpochDay());
+        }
+
+        List<Map<String, Object>> toList() {
+            if (effectiveDays.length == 0) {
+                return Collections.emptyList();
+            }
+            List<Map<String, Object>> list = new ArrayList<>(effectiveDays.length);
+            for (int i = 0; i < effectiveDays.length; i++) {
+                Map<String, Object> rate = new HashMap<>();
+                rate.put("effectiveFrom", Date.valueOf(LocalDate.ofEpochDay(effectiveDays[i])));
+                rate.put("hourlyRate", rates[i]);
+                list.add(rate);
+            }
+            return list;
+        }
+    }
+
+    private static final class RatesBuilder {
+
+        private final double baseRate;
+        private int[] days = new int[4];
+        private double[] rates = new double[4];
+        private int size;
+
+        private RatesBuilder(double baseRate) {
+            this.baseRate = baseRate;
+        }
+
+        private void add(Date effectiveFrom, double rate) {
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                rates = Arrays.copyOf(rates, size * 2);
+            }
+            days[size] = (int) effectiveFrom.toLocalDate().toEpochDay();
+            rates[size++] = rate;
+        }
+
+        private Rates build() {
+            return new Rates(baseRate, Arrays.copyOf(days, size), Arrays.copyOf(rates, size));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.services;
+
+import com.db.Dbfactory;
+import com.db.LatencyHistogram;
+import com.db.QueryTimeouts;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulkhead per report type (payroll, team, utilization, ...). At most
+ * admission.&lt;type&gt;.maxConcurrent reports of a type run at once; up to
+ * maxQueued more wait for admission.queueTimeoutMillis, and anything beyond
+ * that is refused with a retry hint so the caller can answer 503 instead of
+ * piling more load onto MySQL. Admitted reports run with the type's JDBC
+ * query timeout so a runaway statement is cancelled on the server.
+ */
+public class ReportAdmission {
+
+    static Logger logger = Logger.getRootLogger();
+
+    public static final String PAYROLL = "payroll";
+    public static final String BILLING = "billing";
+
+    private static final boolean enabled =
+            Boolean.parseBoolean(Dbfactory.getProperty("admission.enabled", "true"));
+    private static final long queueTimeoutMillis = Dbfactory.getIntProperty("admission.queueTimeoutMillis", 5000);
+
+    private static final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * Thrown when a report type is at capacity and its queue is full or the
+     * wait ran past the deadline.
+     */
+    public static class RejectedException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int retryAfterSeconds;
+
+        public RejectedException(String message, int retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static <T> T call(String type, Callable<T> report) throws Exception {
+        if (!enabled) {
+            return report.call();
+        }
+        return bulkheads.computeIfAbsent(type, Bulkhead::new).call(report);
+    }
+
+    public static List<Bulkhead> getBulkheads() {
+        return new ArrayList<>(bulkheads.values());
+    }
+
+    public static class Bulkhead {
+
+        private final String type;
+        private final int maxConcurrent;
+        private final int maxQueued;
+        private final int queryTimeoutSeconds;
+        private final Semaphore permits;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final LatencyHistogram waits = new LatencyHistogram();
+        // moving average of how long an admitted report holds its slot
+        private volatile double averageRunMillis = 1000;
+
+        private Bulkhead(String type) {
+            this.type = type;
+            this.maxConcurrent = Dbfactory.getIntProperty("admission." + type + ".maxConcurrent",
+                    Dbfactory.getIntProperty("admission.maxConcurrent", 2));
+            this.maxQueued = Dbfactory.getIntProperty("admission." + type + ".maxQueued",
+                    Dbfactory.getIntProperty("admission.maxQueued", 8));
+            this.queryTimeoutSeconds = Dbfactory.getIntProperty("admission." + type + ".queryTimeoutSeconds",
+                    Dbfactory.getIntProperty("admission.queryTimeoutSeconds", 60));
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        private <T> T call(Callable<T> report) throws Exception {
+            long waitStarted = System.nanoTime();
+            if (!permits.tryAcquire()) {
+                if (queued.incrementAndGet() > maxQueued) {
+                    queued.decrementAndGet();
+                    throw reject("queue full");
+                }
+                boolean acquired;
+                try {
+                    acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+                } finally {
+                    queued.decrementAndGet();
+                }
+                if (!acquired) {
+                    throw reject("waited " + queueTimeoutMillis + " ms");
+                }
+            }
+            waits.record((System.nanoTime() - waitStarted) / 1000);
+            admitted.incrementAndGet();
+            active.incrementAndGet();
+            long started = System.currentTimeMillis();
+            try {
+                return QueryTimeouts.call(queryTimeoutSeconds, report);
+            } finally {
+                averageRunMillis = averageRunMillis * 0.8 + (System.currentTimeMillis() - started) * 0.2;
+                active.decrementAndGet();
+                permits.release();
+            }
+        }
+
+        private RejectedException reject(String reason) {
+            rejected.incrementAndGet();
+            // time for the reports ahead of a new caller to drain
+            int retryAfter = (int) Math.max(1, Math.ceil(
+                    averageRunMillis * (queued.get() + 1) / maxConcurrent / 1000));
+            logger.warn("ReportAdmission rejected " + type + " report (" + reason + "), retry after "
+                    + retryAfter + " s");
+            return new RejectedException("Too many " + type + " reports running, retry later", retryAfter);
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public int getActiveCount() {
+            return active.get();
+        }
+
+        public int getQueuedCount() {
+            return queued.get();
+        }
+
+        public long getAdmittedCount() {
+            return admitted.get();
+        }
+
+        public long getRejectedCount() {
+            return rejected.get();
+        }
+
+        public LatencyHistogram getWaits() {
+            return waits;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.services;
+
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight execution of report computations. Concurrent callers with the
+ * same key share one in-flight computation and its result; with
+ * reports.coalesce.ttlMillis above zero the result is also reused for that
+ * long after it completes. Failures are never kept, the next caller retries.
+ * A result computed by a leader that was interrupted (its own request timed
+ * out or went away) is not shared either, since the services cut work short
+ * on an interrupt; its followers retry and one of them computes it again.
+ *
+ * Shared results are handed to every caller as the same object, so callers
+ * must treat them as read-only.
+ */
+public class ReportCoalescer {
+
+    static Logger logger = Logger.getRootLogger();
+
+    public interface Computation<T> {
+        T compute() throws Exception;
+    }
+
+    private static final boolean enabled =
+            Boolean.parseBoolean(Dbfactory.getProperty("reports.coalesce.enabled", "true"));
+    private static final long ttlMillis = Dbfactory.getIntProperty("reports.coalesce.ttlMillis", 0);
+    private static final int maxEntries = Dbfactory.getIntProperty("reports.coalesce.maxEntries", 1000);
+
+    private static final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private static final LongAdder computations = new LongAdder();
+    private static final LongAdder shared = new LongAdder();
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T call(String key, Computation<T> computation) throws Exception {
+        if (!enabled) {
+            return computation.compute();
+        }
+        while (true) {
+            Flight flight = flights.get(key);
+            if (flight != null) {
+                if (flight.isUsable(System.currentTimeMillis())) {
+                    Object result;
+                    try {
+                        result = flight.await();
+                    } catch (LeaderInterrupted e) {
+                        continue;
+                    }
+                    shared.increment();
+                    return (T) result;
+                }
+                flights.remove(key, flight);
+                continue;
+            }
+
+            Flight mine = new Flight();
+            if (flights.putIfAbsent(key, mine) != null) {
+                continue;
+            }
+            if (ttlMillis > 0 && flights.size() > maxEntries) {
+                evictExpired();
+            }
+            computations.increment();
+            try {
+                T result = computation.compute();
+                if (Thread.currentThread().isInterrupted()) {
+                    mine.fail(new LeaderInterrupted());
+                } else {
+                    mine.complete(result);
+                }
+                return result;
+            } catch (Throwable t) {
+                // an Error too, or the followers would wait on the future forever
+                mine.fail(Thread.currentThread().isInterrupted() ? new LeaderInterrupted() : t);
+                throw t;
+            } finally {
+                if (ttlMillis <= 0 || mine.failed) {
+                    flights.remove(key, mine);
+                }
+            }
+        }
+    }
+
+    public static long getComputationCount() {
+        return computations.sum();
+    }
+
+    public static long getSharedCount() {
+        return shared.sum();
+    }
+
+    public static int getCachedCount() {
+        return flights.size();
+    }
+
+    private static void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Flight> it = flights.values().iterator(); it.hasNext(); ) {
+            Flight flight = it.next();
+            if (flight.future.isDone() && !flight.isUsable(now)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Fails a flight whose leader was interrupted; followers retry on it.
+     */
+    private static final class LeaderInterrupted extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private LeaderInterrupted() {
+            super("coalesced leader was interrupted", null, false, false);
+        }
+    }
+
+    private static final class Flight {
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile long completedAt;
+        private volatile boolean failed;
+
+        private void complete(Object result) {
+            completedAt = System.currentTimeMillis();
+            future.complete(result);
+        }
+
+        private void fail(Throwable t) {
+            failed = true;
+            completedAt = System.currentTimeMillis();
+            future.completeExceptionally(t);
+        }
+
+        /**
+         * Still running, or finished successfully within the TTL.
+         */
+        private boolean isUsable(long now) {
+            if (!future.isDone()) {
+                return true;
+            }
+            return !failed && now - completedAt < ttlMillis;
+        }
+
+        private Object await() throws Exception {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
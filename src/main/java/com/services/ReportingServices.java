@@ -8,36 +8,40 @@ import org.apache.log4j.Logger;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 public class ReportingServices {
 
     static Logger logger = Logger.getRootLogger();
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
 
 
     public static boolean addUser(User user) throws SQLException {
 
         logger.info("ReportingServices.addUser entering ... ");
 
-        Connection con = Dbfactory.getConnection();
-        try
+        try (Connection con = Dbfactory.getConnection())
         {
-            Statement st = con.createStatement();
-            String sql = ("INSERT INTO reporting_system.users VALUES ( ? , ? , ? , ? ); ");
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString (1, user.getId());
-            preparedStmt.setString (2,  user.getFullName());
-            preparedStmt.setString (3, user.getPassword());
-            preparedStmt.setString (4, user.getEmail());
-            preparedStmt.execute();
+            String sql = ("INSERT INTO reporting_system.users (id, fullname, password, email) VALUES ( ? , ? , ? , ? ); ");
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString (1, user.getId());
+                preparedStmt.setString (2,  user.getFullName());
+                preparedStmt.setString (3, user.getPassword());
+                preparedStmt.setString (4, user.getEmail());
+                preparedStmt.execute();
+            }
+            TimeEntryColumnStore store = TimeEntryColumnStore.ifLoaded();
+            if (store != null) {
+                store.recordUser(user.getId(), user.getFullName(), user.getEmail());
+            }
         }
         catch(Exception e)
         {
             logger.error(e.getMessage());
             e.printStackTrace();
-        }
-        finally {
-            con.close();
+            return false;
         }
         return true;
     }
@@ -52,70 +56,60 @@ public class ReportingServices {
 
 
 
-    public static boolean cardStamping(User user, String action) throws SQLException {
-        boolean isCardStampedOK = true;
-        Connection con = Dbfactory.getConnection();
-         try
-        {
-            Statement st = con.createStatement();
-            String sql = ("INSERT INTO reporting_system.work_hours VALUES ( ? , ? , ? , ? ); ");
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setInt(1, 0);
-            preparedStmt.setTimestamp (2, "enter".equals(action) ?  getCurrentTimeStamp() : null);//entrance field
-            preparedStmt.setTimestamp   (3, "exit".equals(action) ? getCurrentTimeStamp()  : null );//exit field
-            preparedStmt.setString(4, user.getFullName());
-            preparedStmt.execute();
-        }
-        catch(Exception e)
-        {
-            e.printStackTrace();
-        }
-        finally {
-            con.close();
-        }
-        return isCardStampedOK;
+    /**
+     * Queues the stamp for the group-commit writer. The future completes once
+     * the batch holding it has been committed.
+     */
+    public static CompletableFuture<Boolean> cardStampingAsync(User user, String action) {
+        Timestamp now = getCurrentTimeStamp();
+        return StampingPipeline.getInstance().submit(user.getFullName(),
+                "enter".equals(action) ? now : null,//entrance field
+                "exit".equals(action) ? now : null);//exit field
     }
 
 
 
     public static boolean getById(String id) throws SQLException {
-        Connection con = Dbfactory.getConnection();
-        try
+        try (Connection con = Dbfactory.getConnection())
         {
-            Statement st = con.createStatement();
             String sql = ("SELECT * FROM REPORTING_SYSTEM.WORK_HOURS WHERE ID = ? ; ");
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, id );
-            preparedStmt.execute();
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, id );
+                preparedStmt.execute();
+            }
         }
         catch(Exception e)
         {
             e.printStackTrace();
         }
-        finally {
-            con.close();
-        }
         return false;
     }
 
-    public static List<WorkingHour> fetchAllWorkingHoursByUser(User user) throws SQLException {
-        Connection con = Dbfactory.getConnection();
+    /**
+     * Keyset page over (user, id), newest first. Pass the smallest id of the
+     * previous page as beforeId to get the next one.
+     */
+    public static List<WorkingHour> fetchWorkingHoursPage(User user, int beforeId, int pageSize) throws SQLException {
+        logger.info("ReportingServices.fetchWorkingHoursPage entering ... ");
+        int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
         List<WorkingHour> list = new ArrayList<WorkingHour>();
-        try
-        {
-            Statement st = con.createStatement();
-            String sql = (" SELECT * FROM reporting_system.work_hours ;");
-             ResultSet rs = st.executeQuery(sql);
-            while(rs.next()) {
-                String userName = (String)rs.getString("user");
-                if(user.getFullName().contains(userName))
-                {
-                    WorkingHour bean = new WorkingHour();
-                    bean.setIdentity(rs.getInt("id"));
-                    bean.setEntrance(rs.getTimestamp("enter"));
-                    bean.setExit(rs.getTimestamp("exit"));
-                    bean.setUser(rs.getString("user"));
-                    list.add(bean);
+        try (Connection con = Dbfactory.getConnection())
+        {
+            String sql = ("SELECT id, enter, `exit`, user FROM reporting_system.work_hours " +
+                         "WHERE user = ? AND id < ? ORDER BY id DESC LIMIT ?");
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, user.getFullName());
+                preparedStmt.setInt(2, beforeId);
+                preparedStmt.setInt(3, limit);
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    while(rs.next()) {
+                        WorkingHour bean = new WorkingHour();
+                        bean.setIdentity(rs.getInt("id"));
+                        bean.setEntrance(rs.getTimestamp("enter"));
+                        bean.setExit(rs.getTimestamp("exit"));
+                        bean.setUser(rs.getString("user"));
+                        list.add(bean);
+                    }
                 }
             }
         }
@@ -123,101 +117,88 @@ public class ReportingServices {
         {
             e.printStackTrace();
         }
-        finally {
-            con.close();
-        }
         return list;
     }
 
     public static List<User> fetchAllUsers() throws SQLException {
-        Connection con = Dbfactory.getConnection();
         List<User> list = new ArrayList<User>();
-        try
-        {
-            Statement st = con.createStatement();
-            String sql = (" SELECT * FROM reporting_system.users ;");
-            ResultSet rs = st.executeQuery(sql);
-            while(rs.next()) {
-                User bean = new User();
-                bean.setId(rs.getString("id"));
-                bean.setFullName(rs.getString("fullname"));
-                bean.setPassword(rs.getString("password"));
-                bean.setEmail(rs.getString("email"));
-                list.add(bean);
+        try (Connection con = Dbfactory.getConnection())
+        {
+            try (Statement st = con.createStatement()) {
+                String sql = (" SELECT * FROM reporting_system.users ;");
+                try (ResultSet rs = st.executeQuery(sql)) {
+                    while(rs.next()) {
+                        User bean = new User();
+                        bean.setId(rs.getString("id"));
+                        bean.setFullName(rs.getString("fullname"));
+                        bean.setPassword(rs.getString("password"));
+                        bean.setEmail(rs.getString("email"));
+                        list.add(bean);
+                    }
+                }
             }
         }
         catch(Exception e)
         {
             e.printStackTrace();
         }
-        finally {
-            con.close();
-        }
         return list;
     }
 
 
     public static boolean update(WorkingHour bean) throws SQLException {
-        Connection con = Dbfactory.getConnection();
-        try
+        try (Connection con = Dbfactory.getConnection())
         {
-            Statement st = con.createStatement();
             String sql = ("UPDATE REPORTING_SYSTEM.WORK_HOURS SET entrance = ? ,exit = ? , user = ?  where id = ?");
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setDate (1, (Date) bean.getEntrance());
-            preparedStmt.setDate   (2, (Date) bean.getExit());
-            preparedStmt.setString(3, bean.getUser());
-            preparedStmt.setInt (4, bean.getIdentity());
-            preparedStmt.execute();
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setDate (1, (Date) bean.getEntrance());
+                preparedStmt.setDate   (2, (Date) bean.getExit());
+                preparedStmt.setString(3, bean.getUser());
+                preparedStmt.setInt (4, bean.getIdentity());
+                preparedStmt.execute();
+            }
         }
         catch(Exception e)
         {
             e.printStackTrace();
         }
-        finally {
-            con.close();
-        }
         return false;
     }
 
     public static boolean delete(String id) throws SQLException {
-        Connection con = Dbfactory.getConnection();
-        try
+        try (Connection con = Dbfactory.getConnection())
         {
-            Statement st = con.createStatement();
             String sql = ("DELETE * FROM REPORTING_SYSTEM.WORK_HOURS WHERE ID = ? ; ");
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, id );
-            preparedStmt.execute();
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, id );
+                preparedStmt.execute();
+            }
         }
         catch(Exception e)
         {
             e.printStackTrace();
         }
-        finally {
-            con.close();
-        }
         return false;
     }
 
 
     public static boolean deleteUser(String id) throws SQLException {
-        Connection con = Dbfactory.getConnection();
-        try
+        try (Connection con = Dbfactory.getConnection())
         {
-            Statement st = con.createStatement();
             String sql = ("DELETE FROM REPORTING_SYSTEM.USERS WHERE ID = ? ; ");
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, id );
-            preparedStmt.execute();
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, id );
+                preparedStmt.execute();
+            }
+            TimeEntryColumnStore store = TimeEntryColumnStore.ifLoaded();
+            if (store != null) {
+                store.removeUser(id);
+            }
         }
         catch(Exception e)
         {
             e.printStackTrace();
         }
-        finally {
-            con.close();
-        }
         return false;
     }
 
@@ -0,0 +1,201 @@
+package com.services;
+
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind queue for card stamps. Request threads enqueue and get a future;
+ * a single writer thread drains the queue and group-commits each batch into
+ * work_hours, completing the futures once the transaction is durable.
+ */
+public class StampingPipeline {
+
+    static Logger logger = Logger.getRootLogger();
+
+    static final String INSERT_SQL = "INSERT INTO reporting_system.work_hours (enter, `exit`, user) VALUES (?, ?, ?)";
+
+    private static volatile StampingPipeline instance;
+
+    private final int capacity;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ConcurrentLinkedQueue<Stamp> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong stampCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    StampingPipeline(int capacity, int maxBatchSize, long maxDelayMillis) {
+        this.capacity = capacity;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.writer = new Thread(this::runWriter, "stamping-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static StampingPipeline getInstance() {
+        StampingPipeline current = instance;
+        if (current == null) {
+            synchronized (StampingPipeline.class) {
+                current = instance;
+                if (current == null) {
+                    current = new StampingPipeline(
+                            Dbfactory.getIntProperty("stamping.queue.capacity", 10000),
+                            Dbfactory.getIntProperty("stamping.batch.maxSize", 200),
+                            Dbfactory.getIntProperty("stamping.batch.maxDelayMillis", 5));
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    public CompletableFuture<Boolean> submit(String userName, Timestamp enter, Timestamp exit) {
+        Stamp stamp = new Stamp(userName, enter, exit);
+        if (!running) {
+            stamp.result.completeExceptionally(new RejectedExecutionException("Stamping pipeline is shut down"));
+            return stamp.result;
+        }
+        int depth = queued.incrementAndGet();
+        if (depth > capacity) {
+            queued.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            stamp.result.completeExceptionally(new RejectedExecutionException(
+                    "Stamping queue is full (" + capacity + " pending)"));
+            return stamp.result;
+        }
+        queue.offer(stamp);
+        if (depth == 1 || depth >= maxBatchSize) {
+            LockSupport.unpark(writer);
+        }
+        return stamp.result;
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getStampCount() {
+        return stampCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    void shutdown() {
+        logger.info("StampingPipeline.shutdown entering... pending=" + queued.get());
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<Stamp> batch = new ArrayList<>(maxBatchSize);
+        while (running || queued.get() > 0) {
+            if (queued.get() == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+            // give concurrent stampers a moment to join this batch unless it is already full
+            if (running && queued.get() < maxBatchSize) {
+                LockSupport.parkNanos(this, maxDelayNanos);
+            }
+            Stamp stamp;
+            while (batch.size() < maxBatchSize && (stamp = queue.poll()) != null) {
+                queued.decrementAndGet();
+                batch.add(stamp);
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        logger.info("StampingPipeline writer stopped");
+    }
+
+    private void writeBatch(List<Stamp> batch) {
+        Connection con = Dbfactory.getConnection();
+        try {
+            if (con == null) {
+                throw new SQLException("No database connection available");
+            }
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+                for (Stamp stamp : batch) {
+                    ps.setTimestamp(1, stamp.enter);
+                    ps.setTimestamp(2, stamp.exit);
+                    ps.setString(3, stamp.userName);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            con.commit();
+            batchCount.incrementAndGet();
+            stampCount.addAndGet(batch.size());
+            for (Stamp stamp : batch) {
+                stamp.result.complete(Boolean.TRUE);
+            }
+        } catch (Exception e) {
+            logger.error("StampingPipeline.writeBatch failed for " + batch.size() + " stamp(s): " + e.getMessage());
+            e.printStackTrace();
+            for (Stamp stamp : batch) {
+                stamp.result.completeExceptionally(e);
+            }
+        } finally {
+            if (con != null) {
+                try {
+                    con.close();
+                } catch (SQLException e) {
+                    logger.error(e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class Stamp {
+
+        private final String userName;
+        private final Timestamp enter;
+        private final Timestamp exit;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Stamp(String userName, Timestamp enter, Timestamp exit) {
+            this.userName = userName;
+            this.enter = enter;
+            this.exit = exit;
+        }
+    }
+}
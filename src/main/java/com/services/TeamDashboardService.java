@@ -0,0 +1,280 @@
+package com.services;
+
+import com.db.Dbfactory;
+import com.db.QueryTimeouts;
+import org.apache.log4j.Logger;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The team summary, members, projects and productivity reports from one scan
+ * of time_entry_daily_rollup over the range. The users and projects lookups
+ * run alongside the scan on a small pool, so the dashboard costs one range
+ * scan instead of the four the separate TeamSummaryService calls make.
+ * The lookups run under the caller's query timeout, and a timeout in any of
+ * the three is rethrown rather than returned as a partial dashboard.
+ */
+public class TeamDashboardService {
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static final ExecutorService lookups =
+            Executors.newFixedThreadPool(Dbfactory.getIntProperty("team.dashboard.threads", 2), r -> {
+                Thread thread = new Thread(r, "team-dashboard");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public static Map<String, Object> getTeamDashboard(Date startDate, Date endDate) throws SQLException {
+        logger.info("TeamDashboardService.getTeamDashboard entering...");
+
+        Map<String, Object> dashboard = new HashMap<>();
+
+        int seconds = QueryTimeouts.current();
+        try {
+            CompletableFuture<Map<String, String[]>> users = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return QueryTimeouts.call(seconds, TeamDashboardService::loadUsers);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, lookups);
+            CompletableFuture<List<Object[]>> projects = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return QueryTimeouts.call(seconds, TeamDashboardService::loadProjects);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, lookups);
+
+            Scan scan = scan(startDate, endDate);
+
+            Map<String, String[]> userRows = users.join();
+            List<Object[]> projectRows = projects.join();
+
+            dashboard.put("summary", summary(scan, userRows, startDate, endDate));
+            dashboard.put("members", members(scan, userRows));
+            dashboard.put("projects", projects(scan, projectRows));
+            dashboard.put("productivity", productivity(scan));
+        } catch (SQLTimeoutException e) {
+            throw e;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLTimeoutException) {
+                throw (SQLTimeoutException) e.getCause();
+            }
+            logger.error(e.getMessage());
+            e.printStackTrace();
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            e.printStackTrace();
+        }
+
+        return dashboard;
+    }
+
+    private static Scan scan(Date startDate, Date endDate) throws SQLException {
+        Scan scan = new Scan();
+        try (Connection con = Dbfactory.getConnection()) {
+            String sql = "SELECT user_id, project_id, work_date, total_hours, billable_hours, entry_count " +
+                        "FROM reporting_system.time_entry_daily_rollup " +
+                        "WHERE work_date >= ? AND work_date <= ?";
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setDate(1, startDate);
+                preparedStmt.setDate(2, endDate);
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    while (rs.next()) {
+                        scan.add(rs.getString(1), rs.getInt(2), rs.getDate(3).toLocalDate().toEpochDay(),
+                                rs.getDouble(4), rs.getDouble(5), rs.getInt(6));
+                    }
+                }
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * id to fullname and email, in table order.
+     */
+    private static Map<String, String[]> loadUsers() throws SQLException {
+        Map<String, String[]> users = new LinkedHashMap<>();
+        try (Connection con = Dbfactory.getConnection();
+             PreparedStatement ps = con.prepareStatement("SELECT id, fullname, email FROM reporting_system.users");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                users.put(rs.getString(1), new String[] {rs.getString(2), rs.getString(3)});
+            }
+        }
+        return users;
+    }
+
+    private static List<Object[]> loadProjects() throws SQLException {
+        List<Object[]> projects = new ArrayList<>();
+        String sql = "SELECT project_id, project_name, client_name, status, budget_hours, hourly_rate " +
+                    "FROM reporting_system.projects";
+        try (Connection con = Dbfactory.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                projects.add(new Object[] {rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getDouble(5), rs.getDouble(6)});
+            }
+        }
+        return projects;
+    }
+
+    /**
+     * Matches TeamSummaryService.getTeamSummary: only hours of known users
+     * count.
+     */
+    private static Map<String, Object> summary(Scan scan, Map<String, String[]> users, Date startDate, Date endDate) {
+        int activeEmployees = 0;
+        int entries = 0;
+        double totalHours = 0;
+        double billableHours = 0;
+        Set<Integer> activeProjects = new HashSet<>();
+        for (String userId : users.keySet()) {
+            Totals totals = scan.byUser.get(userId);
+            if (totals == null) {
+                continue;
+            }
+            activeEmployees++;
+            entries += totals.entries;
+            totalHours += totals.hours;
+            billableHours += totals.billableHours;
+            activeProjects.addAll(totals.projects);
+        }
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalEmployees", users.size());
+        summary.put("activeEmployees", activeEmployees);
+        summary.put("inactiveEmployees", users.size() - activeEmployees);
+        summary.put("totalHours", totalHours);
+        summary.put("billableHours", billableHours);
+        summary.put("nonBillableHours", totalHours - billableHours);
+        summary.put("avgHoursPerEntry", entries > 0 ? totalHours / entries : 0);
+        summary.put("activeProjects", activeProjects.size());
+        summary.put("avgHoursPerEmployee", activeEmployees > 0 ? totalHours / activeEmployees : 0);
+        summary.put("billablePercentage", totalHours > 0 ? (billableHours / totalHours) * 100 : 0);
+        summary.put("periodStart", startDate);
+        summary.put("periodEnd", endDate);
+        return summary;
+    }
+
+    private static List<Map<String, Object>> members(Scan scan, Map<String, String[]> users) {
+        List<Map<String, Object>> teamMembers = new ArrayList<>();
+        for (Map.Entry<String, String[]> user : users.entrySet()) {
+            Totals totals = scan.byUser.getOrDefault(user.getKey(), Totals.EMPTY);
+            double totalHours = totals.hours;
+            double billableHours = totals.billableHours;
+            int daysWorked = totals.days.size();
+
+            Map<String, Object> member = new HashMap<>();
+            member.put("userId", user.getKey());
+            member.put("userName", user.getValue()[0]);
+            member.put("email", user.getValue()[1]);
+            member.put("totalHours", totalHours);
+            member.put("billableHours", billableHours);
+            member.put("nonBillableHours", totalHours - billableHours);
+            member.put("projectCount", totals.projects.size());
+            member.put("entryCount", totals.entries);
+            member.put("daysWorked", daysWorked);
+            member.put("avgHoursPerDay", daysWorked > 0 ? totalHours / daysWorked : 0);
+            member.put("billablePercentage", totalHours > 0 ? (billableHours / totalHours) * 100 : 0);
+            teamMembers.add(member);
+        }
+        teamMembers.sort((a, b) -> Double.compare((double) b.get("totalHours"), (double) a.get("totalHours")));
+        return teamMembers;
+    }
+
+    private static List<Map<String, Object>> projects(Scan scan, List<Object[]> projectRows) {
+        List<Map<String, Object>> projects = new ArrayList<>();
+        for (Object[] row : projectRows) {
+            Totals totals = scan.byProject.getOrDefault((Integer) row[0], Totals.EMPTY);
+            double totalHours = totals.hours;
+            double billableHours = totals.billableHours;
+            double budgetHours = (double) row[4];
+            double hourlyRate = (double) row[5];
+
+            Map<String, Object> project = new HashMap<>();
+            project.put("projectId", row[0]);
+            project.put("projectName", row[1]);
+            project.put("clientName", row[2]);
+            project.put("status", row[3]);
+            project.put("teamSize", totals.users.size());
+            project.put("totalHours", totalHours);
+            project.put("billableHours", billableHours);
+            project.put("budgetHours", budgetHours);
+            project.put("remainingHours", budgetHours - totalHours);
+            project.put("budgetUtilization", budgetHours > 0 ? (totalHours / budgetHours) * 100 : 0);
+            project.put("revenue", billableHours * hourlyRate);
+            projects.add(project);
+        }
+        projects.sort((a, b) -> Double.compare((double) b.get("totalHours"), (double) a.get("totalHours")));
+        return projects;
+    }
+
+    private static Map<String, Object> productivity(Scan scan) {
+        Totals all = scan.all;
+        double totalHours = all.hours;
+        double billableHours = all.billableHours;
+        int activeUsers = all.users.size();
+        int totalEntries = all.entries;
+
+        Map<String, Object> productivity = new HashMap<>();
+        productivity.put("totalHours", totalHours);
+        productivity.put("billableHours", billableHours);
+        productivity.put("nonBillableHours", totalHours - billableHours);
+        productivity.put("totalEntries", totalEntries);
+        productivity.put("activeUsers", activeUsers);
+        productivity.put("avgHoursPerUser", activeUsers > 0 ? totalHours / activeUsers : 0);
+        productivity.put("avgHoursPerEntry", totalEntries > 0 ? totalHours / totalEntries : 0);
+        productivity.put("productivityScore", totalHours > 0 ? (billableHours / totalHours) * 100 : 0);
+        return productivity;
+    }
+
+    /**
+     * Rollup rows of the range aggregated per user, per project and overall.
+     */
+    private static final class Scan {
+        final Map<String, Totals> byUser = new HashMap<>();
+        final Map<Integer, Totals> byProject = new HashMap<>();
+        final Totals all = new Totals();
+
+        void add(String userId, int projectId, long day, double hours, double billableHours, int entries) {
+            byUser.computeIfAbsent(userId, k -> new Totals()).add(userId, projectId, day, hours, billableHours, entries);
+            byProject.computeIfAbsent(projectId, k -> new Totals()).add(userId, projectId, day, hours, billableHours, entries);
+            all.add(userId, projectId, day, hours, billableHours, entries);
+        }
+    }
+
+    private static final class Totals {
+        static final Totals EMPTY = new Totals();
+
+        double hours;
+        double billableHours;
+        int entries;
+        final Set<String> users = new HashSet<>();
+        final Set<Integer> projects = new HashSet<>();
+        final Set<Long> days = new HashSet<>();
+
+        void add(String userId, int projectId, long day, double hours, double billableHours, int entries) {
+            this.hours += hours;
+            this.billableHours += billableHours;
+            this.entries += entries;
+            users.add(userId);
+            projects.add(projectId);
+            days.add(day);
+        }
+    }
+}
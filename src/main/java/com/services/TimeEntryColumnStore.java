@@ -0,0 +1,497 @@
+package com.services;
+
+import com.beans.TimeEntry;
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process copy of time_entries laid out as parallel primitive columns
+ * sorted by start time: dictionary codes for user and project, start as epoch
+ * minutes, hours as float and a billable bitset. A date range is a binary
+ * search plus one loop over the arrays, with no per-row objects.
+ *
+ * Off unless analytics.columnStore.enabled is true. It is loaded once from the
+ * database and then kept current by the application's own writes (imports,
+ * overtime entries, new users); rows written to the database by other means
+ * show up after reload().
+ *
+ * Readers work on an immutable snapshot. Appends in time order fill spare
+ * capacity past the published size, which no snapshot reads, so readers never
+ * lock; anything else copies the columns and publishes a new snapshot.
+ */
+public class TimeEntryColumnStore {
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static volatile TimeEntryColumnStore instance;
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(Dbfactory.getProperty("analytics.columnStore.enabled", "false"));
+    }
+
+    /**
+     * The loaded store, loading it on first use; null when disabled or when
+     * the load failed, so callers fall back to SQL.
+     */
+    public static TimeEntryColumnStore getInstance() {
+        TimeEntryColumnStore current = instance;
+        if (current == null && isEnabled()) {
+            synchronized (TimeEntryColumnStore.class) {
+                current = instance;
+                if (current == null) {
+                    try {
+                        current = new TimeEntryColumnStore();
+                        current.reload();
+                        instance = current;
+                    } catch (SQLException e) {
+                        logger.error("TimeEntryColumnStore load failed: " + e.getMessage());
+                        e.printStackTrace();
+                        current = null;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * The store if it has been loaded; write hooks use this so a write never
+     * triggers the initial load.
+     */
+    static TimeEntryColumnStore ifLoaded() {
+        return instance;
+    }
+
+    private static final class Snapshot {
+        final int size;
+        final int[] users;
+        final int[] projects;
+        final int[] minutes;
+        final float[] hours;
+        final long[] billable;
+        final int userCount;
+        final String[] userIds;
+        final String[] fullNames;
+        final String[] emails;
+        final boolean[] listed;
+        final int projectCount;
+        final int[] projectIds;
+
+        Snapshot(int size, int[] users, int[] projects, int[] minutes, float[] hours, long[] billable,
+                 int userCount, String[] userIds, String[] fullNames, String[] emails, boolean[] listed,
+                 int projectCount, int[] projectIds) {
+            this.size = size;
+            this.users = users;
+            this.projects = projects;
+            this.minutes = minutes;
+            this.hours = hours;
+            this.billable = billable;
+            this.userCount = userCount;
+            this.userIds = userIds;
+            this.fullNames = fullNames;
+            this.emails = emails;
+            this.listed = listed;
+            this.projectCount = projectCount;
+            this.projectIds = projectIds;
+        }
+    }
+
+    // writer side state, guarded by this
+    private int size;
+    private int[] users = new int[0];
+    private int[] projects = new int[0];
+    private int[] minutes = new int[0];
+    private float[] hours = new float[0];
+    private long[] billable = new long[0];
+    private final Map<String, Integer> userCodes = new HashMap<>();
+    private String[] userIds = new String[16];
+    private String[] fullNames = new String[16];
+    private String[] emails = new String[16];
+    private boolean[] listed = new boolean[16];
+    private int userCount;
+    private final Map<Integer, Integer> projectCodes = new HashMap<>();
+    private int[] projectIds = new int[16];
+    private int projectCount;
+
+    private volatile Snapshot snapshot;
+
+    public synchronized void reload() throws SQLException {
+        logger.info("TimeEntryColumnStore.reload entering...");
+        long started = System.currentTimeMillis();
+        size = 0;
+        userCount = 0;
+        projectCount = 0;
+        userCodes.clear();
+        projectCodes.clear();
+        users = new int[1024];
+        projects = new int[1024];
+        minutes = new int[1024];
+        hours = new float[1024];
+        billable = new long[16];
+
+        try (Connection con = Dbfactory.getConnection()) {
+            if (con == null) {
+                throw new SQLException("No connection available to load the column store");
+            }
+            try (PreparedStatement ps = con.prepareStatement("SELECT id, fullname, email FROM reporting_system.users");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    putUser(rs.getString("id"), rs.getString("fullname"), rs.getString("email"), true);
+                }
+            }
+            String sql = "SELECT user_id, project_id, start_time, hours_worked, is_billable " +
+                         "FROM reporting_system.time_entries ORDER BY start_time";
+            try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(Integer.MIN_VALUE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ensureCapacity(size + 1);
+                        set(size++, userCode(rs.getString("user_id")), projectCode(rs.getInt("project_id")),
+                                epochMinute(rs.getObject("start_time", LocalDateTime.class)), rs.getFloat("hours_worked"),
+                                rs.getBoolean("is_billable"));
+                    }
+                }
+            }
+        }
+        publish();
+        logger.info("TimeEntryColumnStore loaded " + size + " entries for " + userCount + " users in "
+                + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    public synchronized void recordUser(String userId, String fullName, String email) {
+        Integer code = userCodes.get(userId);
+        if (code == null) {
+            putUser(userId, fullName, email, true);
+        } else {
+            fullNames[code] = fullName;
+            emails[code] = email;
+            listed[code] = true;
+        }
+        publish();
+    }
+
+    public synchronized void removeUser(String userId) {
+        Integer code = userCodes.get(userId);
+        if (code != null) {
+            listed[code] = false;
+            publish();
+        }
+    }
+
+    public void recordEntry(String userId, int projectId, Timestamp startTime, double hoursWorked, boolean isBillable) {
+        TimeEntry entry = new TimeEntry();
+        entry.setUserId(userId);
+        entry.setProjectId(projectId);
+        entry.setStartTime(startTime);
+        entry.setHoursWorked(hoursWorked);
+        entry.setIsBillable(isBillable);
+        recordEntries(Collections.singletonList(entry));
+    }
+
+    /**
+     * Adds committed entries. In time order after the newest entry they are
+     * appended in place; otherwise the batch is merged into fresh columns.
+     */
+    public synchronized void recordEntries(List<TimeEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        int n = entries.size();
+        int[] newUsers = new int[n];
+        int[] newProjects = new int[n];
+        int[] newMinutes = new int[n];
+        float[] newHours = new float[n];
+        boolean[] newBillable = new boolean[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            TimeEntry entry = entries.get(i);
+            newUsers[i] = userCode(entry.getUserId());
+            newProjects[i] = projectCode(entry.getProjectId());
+            newMinutes[i] = epochMinute(entry.getStartTime());
+            newHours[i] = (float) entry.getHoursWorked();
+            newBillable[i] = entry.isBillable();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(newMinutes[a], newMinutes[b]));
+
+        if (size == 0 || newMinutes[order[0]] >= minutes[size - 1]) {
+            ensureCapacity(size + n);
+            for (int i : order) {
+                set(size++, newUsers[i], newProjects[i], newMinutes[i], newHours[i], newBillable[i]);
+            }
+        } else {
+            mergeInto(order, newUsers, newProjects, newMinutes, newHours, newBillable);
+        }
+        publish();
+    }
+
+    private void mergeInto(Integer[] order, int[] newUsers, int[] newProjects, int[] newMinutes, float[] newHours,
+                           boolean[] newBillable) {
+        int total = size + order.length;
+        int capacity = Math.max(16, total + total / 4);
+        int[] oldUsers = users;
+        int[] oldProjects = projects;
+        int[] oldMinutes = minutes;
+        float[] oldHours = hours;
+        long[] oldBillable = billable;
+        int oldSize = size;
+        users = new int[capacity];
+        projects = new int[capacity];
+        minutes = new int[capacity];
+        hours = new float[capacity];
+        billable = new long[(capacity + 63) >>> 6];
+        size = 0;
+
+        int a = 0;
+        int b = 0;
+        while (a < oldSize || b < order.length) {
+            if (b == order.length || (a < oldSize && oldMinutes[a] <= newMinutes[order[b]])) {
+                set(size++, oldUsers[a], oldProjects[a], oldMinutes[a], oldHours[a],
+                        (oldBillable[a >>> 6] & (1L << a)) != 0);
+                a++;
+            } else {
+                int i = order[b++];
+                set(size++, newUsers[i], newProjects[i], newMinutes[i], newHours[i], newBillable[i]);
+            }
+        }
+    }
+
+    private void set(int index, int user, int project, int minute, float hoursWorked, boolean isBillable) {
+        users[index] = user;
+        projects[index] = project;
+        minutes[index] = minute;
+        hours[index] = hoursWorked;
+        if (isBillable) {
+            billable[index >>> 6] |= 1L << index;
+        } else {
+            billable[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= users.length) {
+            return;
+        }
+        int capacity = Math.max(needed, users.length + (users.length >> 1) + 16);
+        users = Arrays.copyOf(users, capacity);
+        projects = Arrays.copyOf(projects, capacity);
+        minutes = Arrays.copyOf(minutes, capacity);
+        hours = Arrays.copyOf(hours, capacity);
+        billable = Arrays.copyOf(billable, (capacity + 63) >>> 6);
+    }
+
+    private int userCode(String userId) {
+        Integer code = userCodes.get(userId);
+        return code != null ? code : putUser(userId, null, null, false);
+    }
+
+    private int putUser(String userId, String fullName, String email, boolean isListed) {
+        if (userCount == userIds.length) {
+            int capacity = userCount * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            fullNames = Arrays.copyOf(fullNames, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+            listed = Arrays.copyOf(listed, capacity);
+        }
+        int code = userCount++;
+        userIds[code] = userId;
+        fullNames[code] = fullName;
+        emails[code] = email;
+        listed[code] = isListed;
+        userCodes.put(userId, code);
+        return code;
+    }
+
+    private int projectCode(int projectId) {
+        Integer code = projectCodes.get(projectId);
+        if (code != null) {
+            return code;
+        }
+        if (projectCount == projectIds.length) {
+            projectIds = Arrays.copyOf(projectIds, projectCount * 2);
+        }
+        projectIds[projectCount] = projectId;
+        projectCodes.put(projectId, projectCount);
+        return projectCount++;
+    }
+
+    private void publish() {
+        // user attributes are small and edited in place, so snapshots get their own copy
+        snapshot = new Snapshot(size, users, projects, minutes, hours, billable, userCount,
+                Arrays.copyOf(userIds, userCount), Arrays.copyOf(fullNames, userCount),
+                Arrays.copyOf(emails, userCount), Arrays.copyOf(listed, userCount),
+                projectCount, projectIds);
+    }
+
+    static int epochMinute(Timestamp time) {
+        return epochMinute(time.toLocalDateTime());
+    }
+
+    /**
+     * Minutes since the epoch of the wall-clock time, as stored in the
+     * DATETIME column; no zone is applied.
+     */
+    static int epochMinute(LocalDateTime time) {
+        return (int) (time.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    private static int lowerBound(int[] values, int size, int key) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * Per user totals for entries starting on startDate through endDate, both
+     * whole days, the same range the rollup queries use.
+     */
+    public UserTotals aggregateByUser(Date startDate, Date endDate) {
+        Snapshot s = snapshot;
+        int from = (int) (startDate.toLocalDate().toEpochDay() * MINUTES_PER_DAY);
+        int to = (int) (endDate.toLocalDate().plusDays(1).toEpochDay() * MINUTES_PER_DAY);
+        int lo = lowerBound(s.minutes, s.size, from);
+        int hi = lowerBound(s.minutes, s.size, to);
+
+        UserTotals totals = new UserTotals(s, startDate.toLocalDate(), endDate.toLocalDate());
+        int[] lastDay = new int[s.userCount];
+        Arrays.fill(lastDay, Integer.MIN_VALUE);
+        BitSet userProjects = new BitSet();
+        int[] users = s.users;
+        int[] projects = s.projects;
+        int[] minutes = s.minutes;
+        float[] hours = s.hours;
+        long[] billable = s.billable;
+        for (int i = lo; i < hi; i++) {
+            int u = users[i];
+            float h = hours[i];
+            totals.totalHours[u] += h;
+            if ((billable[i >>> 6] & (1L << i)) != 0) {
+                totals.billableHours[u] += h;
+            }
+            totals.entryCount[u]++;
+            // rows are in time order, so a user's days arrive in order too
+            int day = minutes[i] / MINUTES_PER_DAY;
+            if (lastDay[u] != day) {
+                lastDay[u] = day;
+                totals.daysWorked[u]++;
+            }
+            int key = u * s.projectCount + projects[i];
+            if (!userProjects.get(key)) {
+                userProjects.set(key);
+                totals.projectCount[u]++;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Result of aggregateByUser, indexed by the store's user code from 0 to
+     * getUserCount() - 1. Users no longer in the users table are included and
+     * flagged by isListed().
+     */
+    public static class UserTotals {
+
+        private final Snapshot snapshot;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        final double[] totalHours;
+        final double[] billableHours;
+        final int[] entryCount;
+        final int[] daysWorked;
+        final int[] projectCount;
+
+        UserTotals(Snapshot snapshot, LocalDate startDate, LocalDate endDate) {
+            this.snapshot = snapshot;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            int n = snapshot.userCount;
+            totalHours = new double[n];
+            billableHours = new double[n];
+            entryCount = new int[n];
+            daysWorked = new int[n];
+            projectCount = new int[n];
+        }
+
+        public int getUserCount() {
+            return snapshot.userCount;
+        }
+
+        /**
+         * False for users removed since the load and for ids that only appear
+         * on time entries without a users row.
+         */
+        public boolean isListed(int user) {
+            return snapshot.listed[user];
+        }
+
+        public String getUserId(int user) {
+            return snapshot.userIds[user];
+        }
+
+        public String getFullName(int user) {
+            return snapshot.fullNames[user];
+        }
+
+        public String getEmail(int user) {
+            return snapshot.emails[user];
+        }
+
+        public double getTotalHours(int user) {
+            return totalHours[user];
+        }
+
+        public double getBillableHours(int user) {
+            return billableHours[user];
+        }
+
+        public int getEntryCount(int user) {
+            return entryCount[user];
+        }
+
+        public int getDaysWorked(int user) {
+            return daysWorked[user];
+        }
+
+        public int getProjectCount(int user) {
+            return projectCount[user];
+        }
+
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+    }
+}
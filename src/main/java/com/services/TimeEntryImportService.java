@@ -0,0 +1,442 @@
+package com.services;
+
+import com.beans.BulkImportResult;
+import com.beans.TimeEntry;
+import com.db.Dbfactory;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class TimeEntryImportService {
+
+    static Logger logger = Logger.getRootLogger();
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    public static final int MAX_CHUNK_SIZE = 10000;
+
+    static final String INSERT_SQL = "INSERT INTO reporting_system.time_entries " +
+            "(user_id, project_id, start_time, end_time, hours_worked, is_billable, description, entry_type, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String[] CSV_COLUMNS = {
+            "user_id", "project_id", "start_time", "end_time", "hours_worked", "is_billable", "description", "entry_type"
+    };
+
+    public static int defaultChunkSize() {
+        return Dbfactory.getIntProperty("timeEntries.import.chunkSize", DEFAULT_CHUNK_SIZE);
+    }
+
+    public static BulkImportResult importTimeEntries(Collection<TimeEntry> entries) {
+        return importTimeEntries(entries, defaultChunkSize());
+    }
+
+    public static BulkImportResult importTimeEntries(Collection<TimeEntry> entries, int chunkSize) {
+        logger.info("TimeEntryImportService.importTimeEntries entering... rows=" + entries.size());
+        Importer importer = new Importer(chunkSize);
+        int row = 0;
+        for (TimeEntry entry : entries) {
+            importer.add(++row, entry);
+        }
+        return importer.finish();
+    }
+
+    /**
+     * Streams a CSV body with a header row naming the time_entries columns
+     * (user_id, project_id, start_time, end_time, hours_worked, is_billable,
+     * description, entry_type). Timestamps use yyyy-MM-dd HH:mm:ss.
+     */
+    public static BulkImportResult importCsv(Reader body, int chunkSize) throws IOException {
+        logger.info("TimeEntryImportService.importCsv entering...");
+        Importer importer = new Importer(chunkSize);
+        BufferedReader reader = new BufferedReader(body);
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return importer.finish();
+        }
+        int[] columnIndex = mapCsvHeader(parseCsvLine(headerLine));
+
+        String line;
+        int row = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            row++;
+            try {
+                importer.add(row, fromCsv(parseCsvLine(line), columnIndex));
+            } catch (IllegalArgumentException e) {
+                importer.reject(row, e.getMessage());
+            }
+        }
+        return importer.finish();
+    }
+
+    /**
+     * Streams a JSON array of objects using the TimeEntry property names
+     * (userId, projectId, startTime, endTime, hoursWorked, billable,
+     * description, entryType). Timestamps may be strings or epoch millis.
+     * Each element is read whole before it is mapped, so a bad value only
+     * rejects its own row; a body that is not valid JSON stops the import at
+     * that point and the rows before it are kept.
+     */
+    public static BulkImportResult importJson(Reader body, int chunkSize) throws IOException {
+        logger.info("TimeEntryImportService.importJson entering...");
+        Importer importer = new Importer(chunkSize);
+        JsonReader reader = new JsonReader(body);
+        int row = 0;
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                row++;
+                JsonElement element = JsonParser.parseReader(reader);
+                try {
+                    importer.add(row, fromJson(element));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    importer.reject(row, e.getMessage());
+                }
+            }
+            reader.endArray();
+        } catch (JsonParseException | IllegalStateException e) {
+            logger.error("TimeEntryImportService.importJson malformed body: " + e.getMessage());
+            importer.reject(Math.max(row, 1), "malformed JSON: " + e.getMessage());
+        }
+        return importer.finish();
+    }
+
+    static String validate(TimeEntry entry) {
+        if (entry.getUserId() == null || entry.getUserId().isEmpty()) {
+            return "user_id is required";
+        }
+        if (entry.getStartTime() == null) {
+            return "start_time is required";
+        }
+        if (entry.getEndTime() != null && entry.getEndTime().before(entry.getStartTime())) {
+            return "end_time is before start_time";
+        }
+        if (entry.getHoursWorked() < 0 || entry.getHoursWorked() > 24) {
+            return "hours_worked must be between 0 and 24";
+        }
+        return null;
+    }
+
+    private static void bind(PreparedStatement ps, TimeEntry entry, Timestamp now) throws SQLException {
+        ps.setString(1, entry.getUserId());
+        ps.setInt(2, entry.getProjectId());
+        ps.setTimestamp(3, entry.getStartTime());
+        ps.setTimestamp(4, entry.getEndTime());
+        ps.setDouble(5, entry.getHoursWorked());
+        ps.setBoolean(6, entry.isBillable());
+        ps.setString(7, entry.getDescription());
+        ps.setString(8, entry.getEntryType() != null ? entry.getEntryType() : "REGULAR");
+        ps.setTimestamp(9, entry.getCreatedAt() != null ? entry.getCreatedAt() : now);
+    }
+
+    private static int[] mapCsvHeader(List<String> header) {
+        int[] index = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            index[i] = -1;
+            for (int j = 0; j < header.size(); j++) {
+                if (CSV_COLUMNS[i].equalsIgnoreCase(header.get(j).trim())) {
+                    index[i] = j;
+                    break;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static TimeEntry fromCsv(List<String> fields, int[] columnIndex) {
+        TimeEntry entry = new TimeEntry();
+        entry.setUserId(csvField(fields, columnIndex[0]));
+        String projectId = csvField(fields, columnIndex[1]);
+        entry.setProjectId(projectId != null ? parseInt(projectId, "project_id") : 0);
+        entry.setStartTime(parseTimestamp(csvField(fields, columnIndex[2]), "start_time"));
+        entry.setEndTime(parseTimestamp(csvField(fields, columnIndex[3]), "end_time"));
+        String hours = csvField(fields, columnIndex[4]);
+        entry.setHoursWorked(hours != null ? parseDouble(hours, "hours_worked") : 0);
+        String billable = csvField(fields, columnIndex[5]);
+        entry.setIsBillable(billable != null && ("1".equals(billable) || "true".equalsIgnoreCase(billable)
+                || "yes".equalsIgnoreCase(billable)));
+        entry.setDescription(csvField(fields, columnIndex[6]));
+        entry.setEntryType(csvField(fields, columnIndex[7]));
+        fillHours(entry);
+        return entry;
+    }
+
+    private static TimeEntry fromJson(JsonElement element) {
+        if (!element.isJsonObject()) {
+            throw new IllegalArgumentException("expected an object, got " + element);
+        }
+        TimeEntry entry = new TimeEntry();
+        for (Map.Entry<String, JsonElement> field : element.getAsJsonObject().entrySet()) {
+            String name = field.getKey();
+            JsonElement value = field.getValue();
+            if (value.isJsonNull()) {
+                continue;
+            }
+            switch (name) {
+                case "userId":
+                    entry.setUserId(jsonPrimitive(value, name).getAsString());
+                    break;
+                case "projectId":
+                    entry.setProjectId(parseInt(jsonPrimitive(value, name).getAsString(), name));
+                    break;
+                case "startTime":
+                    entry.setStartTime(jsonTimestamp(value, name));
+                    break;
+                case "endTime":
+                    entry.setEndTime(jsonTimestamp(value, name));
+                    break;
+                case "hoursWorked":
+                    entry.setHoursWorked(parseDouble(jsonPrimitive(value, name).getAsString(), name));
+                    break;
+                case "billable":
+                case "isBillable":
+                    JsonPrimitive billable = jsonPrimitive(value, name);
+                    if (!billable.isBoolean()) {
+                        throw new IllegalArgumentException("invalid " + name + ": " + value);
+                    }
+                    entry.setIsBillable(billable.getAsBoolean());
+                    break;
+                case "description":
+                    entry.setDescription(jsonPrimitive(value, name).getAsString());
+                    break;
+                case "entryType":
+                    entry.setEntryType(jsonPrimitive(value, name).getAsString());
+                    break;
+                default:
+                    break;
+            }
+        }
+        fillHours(entry);
+        return entry;
+    }
+
+    private static void fillHours(TimeEntry entry) {
+        if (entry.getHoursWorked() == 0 && entry.getStartTime() != null && entry.getEndTime() != null) {
+            entry.setHoursWorked(entry.calculateDuration());
+        }
+    }
+
+    private static JsonPrimitive jsonPrimitive(JsonElement value, String field) {
+        if (!value.isJsonPrimitive()) {
+            throw new IllegalArgumentException("invalid " + field + ": " + value);
+        }
+        return value.getAsJsonPrimitive();
+    }
+
+    private static Timestamp jsonTimestamp(JsonElement value, String field) {
+        JsonPrimitive primitive = jsonPrimitive(value, field);
+        if (primitive.isNumber()) {
+            return new Timestamp(primitive.getAsLong());
+        }
+        if (primitive.isBoolean()) {
+            throw new IllegalArgumentException("invalid " + field + ": " + value);
+        }
+        return parseTimestamp(primitive.getAsString(), field);
+    }
+
+    private static String csvField(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Timestamp parseTimestamp(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Timestamp.valueOf(value.length() == 10 ? value + " 00:00:00" : value.replace('T', ' '));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid " + field + ": " + value);
+        }
+    }
+
+    private static int parseInt(String value, String field) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + field + ": " + value);
+        }
+    }
+
+    private static double parseDouble(String value, String field) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + field + ": " + value);
+        }
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Buffers validated rows and writes each full chunk as one JDBC batch in
+     * its own transaction. A chunk the database rejects is replayed row by row
+     * so only the offending rows are reported and the rest still commit. The
+     * connection is borrowed per chunk, so a slow or abandoned upload does not
+     * hold a pool slot while the body is being read.
+     */
+    private static class Importer {
+
+        private final int chunkSize;
+        private final BulkImportResult result = new BulkImportResult();
+        private final List<TimeEntry> chunk = new ArrayList<>();
+        private final List<Integer> chunkRows = new ArrayList<>();
+        private final long startedAt = System.currentTimeMillis();
+
+        private Importer(int chunkSize) {
+            this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        }
+
+        private void add(int row, TimeEntry entry) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            String problem = validate(entry);
+            if (problem != null) {
+                result.addError(row, problem);
+                return;
+            }
+            chunk.add(entry);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void reject(int row, String message) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            result.addError(row, message);
+        }
+
+        private BulkImportResult finish() {
+            flush();
+            result.setElapsedMillis(System.currentTimeMillis() - startedAt);
+            logger.info("TimeEntryImportService imported " + result.getInsertedRows() + "/" + result.getTotalRows()
+                    + " rows in " + result.getChunks() + " chunk(s), " + result.getElapsedMillis() + " ms");
+            return result;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            result.setChunks(result.getChunks() + 1);
+            try (Connection con = Dbfactory.getConnection()) {
+                if (con == null) {
+                    throw new SQLException("No database connection available");
+                }
+                con.setAutoCommit(false);
+                try {
+                    writeBatch(con);
+                    result.setInsertedRows(result.getInsertedRows() + chunk.size());
+                } catch (SQLException e) {
+                    con.rollback();
+                    logger.error("TimeEntryImportService chunk failed, retrying row by row: " + e.getMessage());
+                    writeRowByRow(con);
+                }
+            } catch (SQLException e) {
+                logger.error(e.getMessage());
+                e.printStackTrace();
+                for (Integer row : chunkRows) {
+                    result.addError(row, e.getMessage());
+                }
+            } finally {
+                chunk.clear();
+                chunkRows.clear();
+            }
+        }
+
+        private void writeBatch(Connection con) throws SQLException {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+                for (TimeEntry entry : chunk) {
+                    bind(ps, entry, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            con.commit();
+            TimeEntryColumnStore store = TimeEntryColumnStore.ifLoaded();
+            if (store != null) {
+                store.recordEntries(chunk);
+            }
+            ProjectBurnIndex burn = ProjectBurnIndex.ifLoaded();
+            if (burn != null) {
+                burn.recordEntries(chunk);
+            }
+            BudgetAlertService.recordEntries(chunk);
+        }
+
+        private void writeRowByRow(Connection con) throws SQLException {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            List<TimeEntry> inserted = new ArrayList<>();
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    Savepoint savepoint = con.setSavepoint();
+                    try {
+                        bind(ps, chunk.get(i), now);
+                        ps.executeUpdate();
+                        inserted.add(chunk.get(i));
+                    } catch (SQLException e) {
+                        con.rollback(savepoint);
+                        result.addError(chunkRows.get(i), e.getMessage());
+                    }
+                }
+            }
+            con.commit();
+            result.setInsertedRows(result.getInsertedRows() + inserted.size());
+            TimeEntryColumnStore store = TimeEntryColumnStore.ifLoaded();
+            if (store != null) {
+                store.recordEntries(inserted);
+            }
+            ProjectBurnIndex burn = ProjectBurnIndex.ifLoaded();
+            if (burn != null) {
+                burn.recordEntries(inserted);
+            }
+            BudgetAlertService.recordEntries(inserted);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.services;
 
+import com.beans.DailyHours;
 import com.db.Dbfactory;
 import org.apache.log4j.Logger;
 
@@ -18,42 +19,43 @@ public class WeeklyReportService {
         logger.info("WeeklyReportService.generateWeeklyReport entering...");
 
         Map<String, Object> report = new HashMap<>();
-        Connection con = Dbfactory.getConnection();
 
-        try {
+        try (Connection con = Dbfactory.getConnection()) {
             Calendar cal = Calendar.getInstance();
             cal.setTime(weekStartDate);
             cal.add(Calendar.DAY_OF_MONTH, 7);
             Date weekEndDate = new Date(cal.getTimeInMillis());
 
             String sql = "SELECT " +
-                        "SUM(hours_worked) as total_hours, " +
-                        "SUM(CASE WHEN is_billable = true THEN hours_worked ELSE 0 END) as billable_hours, " +
-                        "SUM(CASE WHEN is_billable = false THEN hours_worked ELSE 0 END) as non_billable_hours, " +
-                        "COUNT(DISTINCT DATE(start_time)) as days_worked, " +
-                        "COUNT(entry_id) as total_entries " +
-                        "FROM reporting_system.time_entries " +
-                        "WHERE user_id = ? AND start_time >= ? AND start_time < ?";
-
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, userId);
-            preparedStmt.setDate(2, weekStartDate);
-            preparedStmt.setDate(3, weekEndDate);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            if (rs.next()) {
-                report.put("userId", userId);
-                report.put("weekStart", weekStartDate);
-                report.put("weekEnd", weekEndDate);
-                report.put("totalHours", rs.getDouble("total_hours"));
-                report.put("billableHours", rs.getDouble("billable_hours"));
-                report.put("nonBillableHours", rs.getDouble("non_billable_hours"));
-                report.put("daysWorked", rs.getInt("days_worked"));
-                report.put("totalEntries", rs.getInt("total_entries"));
-
-                double totalHours = rs.getDouble("total_hours");
-                double avgHoursPerDay = totalHours / Math.max(1, rs.getInt("days_worked"));
-                report.put("averageHoursPerDay", avgHoursPerDay);
+                        "SUM(total_hours) as total_hours, " +
+                        "SUM(billable_hours) as billable_hours, " +
+                        "SUM(total_hours - billable_hours) as non_billable_hours, " +
+                        "COUNT(DISTINCT work_date) as days_worked, " +
+                        "SUM(entry_count) as total_entries " +
+                        "FROM reporting_system.time_entry_daily_rollup " +
+                        "WHERE user_id = ? AND work_date >= ? AND work_date < ?";
+
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, userId);
+                preparedStmt.setDate(2, weekStartDate);
+                preparedStmt.setDate(3, weekEndDate);
+
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    if (rs.next()) {
+                        report.put("userId", userId);
+                        report.put("weekStart", weekStartDate);
+                        report.put("weekEnd", weekEndDate);
+                        report.put("totalHours", rs.getDouble("total_hours"));
+                        report.put("billableHours", rs.getDouble("billable_hours"));
+                        report.put("nonBillableHours", rs.getDouble("non_billable_hours"));
+                        report.put("daysWorked", rs.getInt("days_worked"));
+                        report.put("totalEntries", rs.getInt("total_entries"));
+
+                        double totalHours = rs.getDouble("total_hours");
+                        double avgHoursPerDay = totalHours / Math.max(1, rs.getInt("days_worked"));
+                        report.put("averageHoursPerDay", avgHoursPerDay);
+                    }
+                }
             }
 
             report.put("projectBreakdown", getProjectBreakdown(userId, weekStartDate, weekEndDate, con));
@@ -61,8 +63,6 @@ public class WeeklyReportService {
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return report;
@@ -72,9 +72,8 @@ public class WeeklyReportService {
         logger.info("WeeklyReportService.generateMonthlyReport entering...");
 
         Map<String, Object> report = new HashMap<>();
-        Connection con = Dbfactory.getConnection();
 
-        try {
+        try (Connection con = Dbfactory.getConnection()) {
             Calendar cal = Calendar.getInstance();
             cal.set(year, month - 1, 1, 0, 0, 0);
             Date monthStart = new Date(cal.getTimeInMillis());
@@ -83,35 +82,37 @@ public class WeeklyReportService {
             Date monthEnd = new Date(cal.getTimeInMillis());
 
             String sql = "SELECT " +
-                        "SUM(hours_worked) as total_hours, " +
-                        "SUM(CASE WHEN is_billable = true THEN hours_worked ELSE 0 END) as billable_hours, " +
-                        "SUM(CASE WHEN is_billable = false THEN hours_worked ELSE 0 END) as non_billable_hours, " +
-                        "COUNT(DISTINCT DATE(start_time)) as days_worked, " +
-                        "COUNT(entry_id) as total_entries " +
-                        "FROM reporting_system.time_entries " +
-                        "WHERE user_id = ? AND start_time >= ? AND start_time < ?";
-
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, userId);
-            preparedStmt.setDate(2, monthStart);
-            preparedStmt.setDate(3, monthEnd);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            if (rs.next()) {
-                report.put("userId", userId);
-                report.put("year", year);
-                report.put("month", month);
-                report.put("monthStart", monthStart);
-                report.put("monthEnd", monthEnd);
-                report.put("totalHours", rs.getDouble("total_hours"));
-                report.put("billableHours", rs.getDouble("billable_hours"));
-                report.put("nonBillableHours", rs.getDouble("non_billable_hours"));
-                report.put("daysWorked", rs.getInt("days_worked"));
-                report.put("totalEntries", rs.getInt("total_entries"));
-
-                double totalHours = rs.getDouble("total_hours");
-                double avgHoursPerDay = totalHours / Math.max(1, rs.getInt("days_worked"));
-                report.put("averageHoursPerDay", avgHoursPerDay);
+                        "SUM(total_hours) as total_hours, " +
+                        "SUM(billable_hours) as billable_hours, " +
+                        "SUM(total_hours - billable_hours) as non_billable_hours, " +
+                        "COUNT(DISTINCT work_date) as days_worked, " +
+                        "SUM(entry_count) as total_entries " +
+                        "FROM reporting_system.time_entry_daily_rollup " +
+                        "WHERE user_id = ? AND work_date >= ? AND work_date < ?";
+
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, userId);
+                preparedStmt.setDate(2, monthStart);
+                preparedStmt.setDate(3, monthEnd);
+
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    if (rs.next()) {
+                        report.put("userId", userId);
+                        report.put("year", year);
+                        report.put("month", month);
+                        report.put("monthStart", monthStart);
+                        report.put("monthEnd", monthEnd);
+                        report.put("totalHours", rs.getDouble("total_hours"));
+                        report.put("billableHours", rs.getDouble("billable_hours"));
+                        report.put("nonBillableHours", rs.getDouble("non_billable_hours"));
+                        report.put("daysWorked", rs.getInt("days_worked"));
+                        report.put("totalEntries", rs.getInt("total_entries"));
+
+                        double totalHours = rs.getDouble("total_hours");
+                        double avgHoursPerDay = totalHours / Math.max(1, rs.getInt("days_worked"));
+                        report.put("averageHoursPerDay", avgHoursPerDay);
+                    }
+                }
             }
 
             report.put("projectBreakdown", getProjectBreakdown(userId, monthStart, monthEnd, con));
@@ -120,8 +121,6 @@ public class WeeklyReportService {
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return report;
@@ -131,37 +130,49 @@ public class WeeklyReportService {
         logger.info("WeeklyReportService.getDailyBreakdown entering...");
 
         List<Map<String, Object>> dailyList = new ArrayList<>();
-        Connection con = Dbfactory.getConnection();
+        for (DailyHours day : getDailyHours(userId, startDate, endDate)) {
+            Map<String, Object> dailyData = new HashMap<>();
+            dailyData.put("date", day.getDate());
+            dailyData.put("totalHours", day.getTotalHours());
+            dailyData.put("billableHours", day.getBillableHours());
+            dailyData.put("nonBillableHours", day.getNonBillableHours());
+            dailyList.add(dailyData);
+        }
+        return dailyList;
+    }
 
-        try {
-            String sql = "SELECT DATE(start_time) as work_date, " +
-                        "SUM(hours_worked) as total_hours, " +
-                        "SUM(CASE WHEN is_billable = true THEN hours_worked ELSE 0 END) as billable_hours, " +
-                        "SUM(CASE WHEN is_billable = false THEN hours_worked ELSE 0 END) as non_billable_hours " +
-                        "FROM reporting_system.time_entries " +
-                        "WHERE user_id = ? AND start_time >= ? AND start_time <= ? " +
-                        "GROUP BY DATE(start_time) " +
+    /**
+     * getDailyBreakdown as typed rows, without a map per day.
+     */
+    public static List<DailyHours> getDailyHours(String userId, Date startDate, Date endDate) throws SQLException {
+        logger.info("WeeklyReportService.getDailyHours entering...");
+
+        List<DailyHours> dailyList = new ArrayList<>();
+
+        try (Connection con = Dbfactory.getConnection()) {
+            String sql = "SELECT work_date, " +
+                        "SUM(total_hours) as total_hours, " +
+                        "SUM(billable_hours) as billable_hours " +
+                        "FROM reporting_system.time_entry_daily_rollup " +
+                        "WHERE user_id = ? AND work_date >= ? AND work_date <= ? " +
+                        "GROUP BY work_date " +
                         "ORDER BY work_date";
 
-            PreparedStatement preparedStmt = con.prepareStatement(sql);
-            preparedStmt.setString(1, userId);
-            preparedStmt.setDate(2, startDate);
-            preparedStmt.setDate(3, endDate);
-
-            ResultSet rs = preparedStmt.executeQuery();
-            while (rs.next()) {
-                Map<String, Object> dailyData = new HashMap<>();
-                dailyData.put("date", rs.getDate("work_date"));
-                dailyData.put("totalHours", rs.getDouble("total_hours"));
-                dailyData.put("billableHours", rs.getDouble("billable_hours"));
-                dailyData.put("nonBillableHours", rs.getDouble("non_billable_hours"));
-                dailyList.add(dailyData);
+            try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                preparedStmt.setString(1, userId);
+                preparedStmt.setDate(2, startDate);
+                preparedStmt.setDate(3, endDate);
+
+                try (ResultSet rs = preparedStmt.executeQuery()) {
+                    while (rs.next()) {
+                        dailyList.add(new DailyHours((int) rs.getDate("work_date").toLocalDate().toEpochDay(),
+                                rs.getDouble("total_hours"), rs.getDouble("billable_hours")));
+                    }
+                }
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
             e.printStackTrace();
-        } finally {
-            con.close();
         }
 
         return dailyList;
@@ -170,27 +181,29 @@ public class WeeklyReportService {
     private static List<Map<String, Object>> getProjectBreakdown(String userId, Date startDate, Date endDate, Connection con) {
         List<Map<String, Object>> projectList = new ArrayList<>();
         try {
-            String sql = "SELECT te.project_id, p.project_name, " +
-                        "SUM(te.hours_worked) as project_hours, " +
-                        "SUM(CASE WHEN te.is_billable = true THEN te.hours_worked ELSE 0 END) as billable_hours " +
-                        "FROM reporting_system.time_entries te " +
-                        "LEFT JOIN reporting_system.projects p ON te.project_id = p.project_id " +
-                        "WHERE te.user_id = ? AND te.start_time >= ? AND te.start_time < ? " +
-                        "GROUP BY te.project_id, p.project_name";
-
-            PreparedStatement ps = con.prepareStatement(sql);
-            ps.setString(1, userId);
-            ps.setDate(2, startDate);
-            ps.setDate(3, endDate);
-
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                Map<String, Object> project = new HashMap<>();
-                project.put("projectId", rs.getInt("project_id"));
-                project.put("projectName", rs.getString("project_name"));
-                project.put("totalHours", rs.getDouble("project_hours"));
-                project.put("billableHours", rs.getDouble("billable_hours"));
-                projectList.add(project);
+            String sql = "SELECT r.project_id, p.project_name, " +
+                        "SUM(r.total_hours) as project_hours, " +
+                        "SUM(r.billable_hours) as billable_hours " +
+                        "FROM reporting_system.time_entry_daily_rollup r " +
+                        "LEFT JOIN reporting_system.projects p ON r.project_id = p.project_id " +
+                        "WHERE r.user_id = ? AND r.work_date >= ? AND r.work_date < ? " +
+                        "GROUP BY r.project_id, p.project_name";
+
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setString(1, userId);
+                ps.setDate(2, startDate);
+                ps.setDate(3, endDate);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Map<String, Object> project = new HashMap<>();
+                        project.put("projectId", rs.getInt("project_id"));
+                        project.put("projectName", rs.getString("project_name"));
+                        project.put("totalHours", rs.getDouble("project_hours"));
+                        project.put("billableHours", rs.getDouble("billable_hours"));
+                        projectList.add(project);
+                    }
+                }
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
@@ -202,28 +215,35 @@ public class WeeklyReportService {
     private static List<Map<String, Object>> getWeeklyBreakdown(String userId, Date startDate, Date endDate, Connection con) {
         List<Map<String, Object>> weeklyList = new ArrayList<>();
         try {
-            String sql = "SELECT WEEK(start_time) as week_num, " +
-                        "MIN(DATE(start_time)) as week_start, " +
-                        "MAX(DATE(start_time)) as week_end, " +
-                        "SUM(hours_worked) as total_hours " +
-                        "FROM reporting_system.time_entries " +
-                        "WHERE user_id = ? AND start_time >= ? AND start_time < ? " +
-                        "GROUP BY WEEK(start_time) " +
-                        "ORDER BY week_num";
-
-            PreparedStatement ps = con.prepareStatement(sql);
-            ps.setString(1, userId);
-            ps.setDate(2, startDate);
-            ps.setDate(3, endDate);
-
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                Map<String, Object> week = new HashMap<>();
-                week.put("weekNumber", rs.getInt("week_num"));
-                week.put("weekStart", rs.getDate("week_start"));
-                week.put("weekEnd", rs.getDate("week_end"));
-                week.put("totalHours", rs.getDouble("total_hours"));
-                weeklyList.add(week);
+            // work_week is the ISO yyyyww; the week range walks idx_rollup_user_week in
+            // group order and the work_date range trims the partial weeks at either end
+            String sql = "SELECT work_week, " +
+                        "MIN(work_date) as week_start, " +
+                        "MAX(work_date) as week_end, " +
+                        "SUM(total_hours) as total_hours " +
+                        "FROM reporting_system.time_entry_daily_rollup " +
+                        "WHERE user_id = ? AND work_week >= YEARWEEK(?, 3) AND work_week <= YEARWEEK(?, 3) " +
+                        "AND work_date >= ? AND work_date < ? " +
+                        "GROUP BY work_week " +
+                        "ORDER BY work_week";
+
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setString(1, userId);
+                ps.setDate(2, startDate);
+                ps.setDate(3, endDate);
+                ps.setDate(4, startDate);
+                ps.setDate(5, endDate);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Map<String, Object> week = new HashMap<>();
+                        week.put("weekNumber", rs.getInt("work_week") % 100);
+                        week.put("weekStart", rs.getDate("week_start"));
+                        week.put("weekEnd", rs.getDate("week_end"));
+                        week.put("totalHours", rs.getDouble("total_hours"));
+                        weeklyList.add(week);
+                    }
+                }
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
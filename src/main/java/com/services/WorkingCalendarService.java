@@ -0,0 +1,390 @@
+package com.services;
+
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Working calendars per region with precomputed prefix sums of working hours
+ * per day, so the working hours between two dates are one subtraction.
+ * Approved leave is indexed per user as sorted leave days with prefix sums of
+ * the hours they take off, so available hours for a user and range cost two
+ * binary searches over that user's leave days.
+ *
+ * The calendar is an immutable snapshot swapped in one volatile write; holiday
+ * changes rebuild it and leave approvals rebuild the leave part.
+ */
+public class WorkingCalendarService {
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static final String defaultRegion = Dbfactory.getProperty("calendar.defaultRegion", "DEFAULT");
+    private static final int yearsBack = Dbfactory.getIntProperty("calendar.yearsBack", 10);
+    private static final int yearsAhead = Dbfactory.getIntProperty("calendar.yearsAhead", 2);
+
+    private static final double DEFAULT_HOURS_PER_DAY = 8.0;
+
+    private static volatile WorkingCalendar calendar;
+
+    /**
+     * The current calendar, loading it on first use.
+     */
+    public static WorkingCalendar getCalendar() throws SQLException {
+        WorkingCalendar current = calendar;
+        if (current == null) {
+            synchronized (WorkingCalendarService.class) {
+                current = calendar;
+                if (current == null) {
+                    current = reload();
+                }
+            }
+        }
+        return current;
+    }
+
+    public static synchronized WorkingCalendar reload() throws SQLException {
+        long started = System.currentTimeMillis();
+        int year = LocalDate.now().getYear();
+        int firstDay = (int) LocalDate.of(year - yearsBack, 1, 1).toEpochDay();
+        int lastDay = (int) LocalDate.of(year + yearsAhead, 12, 31).toEpochDay();
+
+        WorkingCalendar current;
+        try (Connection con = Dbfactory.getConnection()) {
+            Map<String, RegionCalendar> regions = loadRegions(con, firstDay, lastDay);
+            Map<String, String> userRegions = loadUserRegions(con);
+            current = new WorkingCalendar(regions, userRegions, new HashMap<>());
+            current = current.withLeave(loadLeave(con, current));
+        }
+        calendar = current;
+        logger.info("WorkingCalendarService loaded " + current.regions.size() + " regions and leave for "
+                + current.leave.size() + " users in " + (System.currentTimeMillis() - started) + " ms");
+        return current;
+    }
+
+    /**
+     * Rebuilds only the approved leave index; called after leave approvals.
+     */
+    public static synchronized void reloadLeave() throws SQLException {
+        WorkingCalendar current = calendar;
+        if (current == null) {
+            return;
+        }
+        try (Connection con = Dbfactory.getConnection()) {
+            calendar = current.withLeave(loadLeave(con, current));
+        }
+    }
+
+    public static boolean addHoliday(String region, Date holidayDate, String name) throws SQLException {
+        logger.info("WorkingCalendarService.addHoliday entering...");
+
+        try {
+            try (Connection con = Dbfactory.getConnection()) {
+                String sql = "INSERT INTO reporting_system.calendar_holidays (region, holiday_date, name) " +
+                            "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name)";
+                try (PreparedStatement preparedStmt = con.prepareStatement(sql)) {
+                    preparedStmt.setString(1, region);
+                    preparedStmt.setDate(2, holidayDate);
+                    preparedStmt.setString(3, name);
+                    preparedStmt.execute();
+                }
+            }
+            reload();
+            return true;
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    public static Map<String, Object> getAvailableHours(String userId, Date startDate, Date endDate) throws SQLException {
+        logger.info("WorkingCalendarService.getAvailableHours entering...");
+
+        WorkingCalendar current = getCalendar();
+        Map<String, Object> available = new HashMap<>();
+        available.put("userId", userId);
+        available.put("region", current.regionOf(userId));
+        available.put("startDate", startDate);
+        available.put("endDate", endDate);
+        available.put("workingHours", current.workingHours(current.regionOf(userId), startDate, endDate));
+        available.put("leaveDays", current.leaveDays(userId, startDate, endDate));
+        available.put("leaveHours", current.leaveHours(userId, startDate, endDate));
+        available.put("availableHours", current.availableHours(userId, startDate, endDate));
+        return available;
+    }
+
+    private static Map<String, RegionCalendar> loadRegions(Connection con, int firstDay, int lastDay)
+            throws SQLException {
+        Map<String, boolean[]> weekends = new HashMap<>();
+        Map<String, Double> hoursPerDay = new HashMap<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT region, weekend_days, hours_per_day FROM reporting_system.calendar_regions");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                weekends.put(rs.getString(1), parseWeekend(rs.getString(2)));
+                hoursPerDay.put(rs.getString(1), rs.getDouble(3));
+            }
+        }
+
+        Map<String, Set<Integer>> holidays = new HashMap<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT region, holiday_date FROM reporting_system.calendar_holidays");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                holidays.computeIfAbsent(rs.getString(1), k -> new HashSet<>())
+                        .add((int) rs.getDate(2).toLocalDate().toEpochDay());
+            }
+        }
+
+        Set<String> names = new HashSet<>(weekends.keySet());
+        names.addAll(holidays.keySet());
+        names.add(defaultRegion);
+        Map<String, RegionCalendar> regions = new HashMap<>();
+        for (String name : names) {
+            regions.put(name, new RegionCalendar(firstDay, lastDay,
+                    weekends.getOrDefault(name, parseWeekend("SATURDAY,SUNDAY")),
+                    hoursPerDay.getOrDefault(name, DEFAULT_HOURS_PER_DAY),
+                    holidays.getOrDefault(name, new HashSet<>())));
+        }
+        return regions;
+    }
+
+    private static Map<String, String> loadUserRegions(Connection con) throws SQLException {
+        Map<String, String> userRegions = new HashMap<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT id, region FROM reporting_system.users WHERE region IS NOT NULL");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                userRegions.put(rs.getString(1), rs.getString(2));
+            }
+        }
+        return userRegions;
+    }
+
+    /**
+     * Spreads each approved request over the working days it covers. A
+     * request shorter than its working days (a half day) takes that fraction
+     * of each; overlapping requests never take more than a whole day.
+     */
+    private static Map<String, UserLeave> loadLeave(Connection con, WorkingCalendar current) throws SQLException {
+        Map<String, TreeMap<Integer, Double>> fractions = new HashMap<>();
+        String sql = "SELECT user_id, start_date, end_date, total_days FROM reporting_system.leave_requests " +
+                    "WHERE status = 'APPROVED'";
+        try (PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String userId = rs.getString(1);
+                RegionCalendar region = current.calendarOf(userId);
+                // read as stored, not shifted through the JVM's zone
+                int from = (int) rs.getObject(2, LocalDateTime.class).toLocalDate().toEpochDay();
+                int to = (int) rs.getObject(3, LocalDateTime.class).toLocalDate().toEpochDay();
+                double totalDays = rs.getDouble(4);
+
+                int workingDays = 0;
+                for (int day = from; day <= to; day++) {
+                    if (region.hoursOn(day) > 0) {
+                        workingDays++;
+                    }
+                }
+                if (workingDays == 0) {
+                    continue;
+                }
+                double fraction = totalDays > 0 ? Math.min(1.0, totalDays / workingDays) : 1.0;
+                TreeMap<Integer, Double> days = fractions.computeIfAbsent(userId, k -> new TreeMap<>());
+                for (int day = from; day <= to; day++) {
+                    if (region.hoursOn(day) > 0) {
+                        days.merge(day, fraction, (a, b) -> Math.min(1.0, a + b));
+                    }
+                }
+            }
+        }
+
+        Map<String, UserLeave> leave = new HashMap<>();
+        for (Map.Entry<String, TreeMap<Integer, Double>> entry : fractions.entrySet()) {
+            leave.put(entry.getKey(), new UserLeave(entry.getValue(), current.calendarOf(entry.getKey())));
+        }
+        return leave;
+    }
+
+    private static boolean[] parseWeekend(String weekendDays) {
+        boolean[] weekend = new boolean[7];
+        if (weekendDays != null) {
+            for (String day : weekendDays.split(",")) {
+                if (!day.trim().isEmpty()) {
+                    weekend[DayOfWeek.valueOf(day.trim().toUpperCase()).getValue() - 1] = true;
+                }
+            }
+        }
+        return weekend;
+    }
+
+    static int epochDay(Date date) {
+        return (int) date.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Immutable snapshot of every region's calendar and the approved leave.
+     * Ranges are inclusive of both dates.
+     */
+    public static final class WorkingCalendar {
+
+        private final Map<String, RegionCalendar> regions;
+        private final Map<String, String> userRegions;
+        private final Map<String, UserLeave> leave;
+
+        private WorkingCalendar(Map<String, RegionCalendar> regions, Map<String, String> userRegions,
+                                Map<String, UserLeave> leave) {
+            this.regions = regions;
+            this.userRegions = userRegions;
+            this.leave = leave;
+        }
+
+        private WorkingCalendar withLeave(Map<String, UserLeave> leave) {
+            return new WorkingCalendar(regions, userRegions, leave);
+        }
+
+        public String regionOf(String userId) {
+            String region = userRegions.get(userId);
+            return region != null && regions.containsKey(region) ? region : defaultRegion;
+        }
+
+        RegionCalendar calendarOf(String userId) {
+            return regions.get(regionOf(userId));
+        }
+
+        public double workingHours(String region, Date startDate, Date endDate) {
+            RegionCalendar calendar = regions.getOrDefault(region, regions.get(defaultRegion));
+            return calendar.hoursBetween(epochDay(startDate), epochDay(endDate));
+        }
+
+        public double workingHours(String region, int fromDay, int toDay) {
+            RegionCalendar calendar = regions.getOrDefault(region, regions.get(defaultRegion));
+            return calendar.hoursBetween(fromDay, toDay);
+        }
+
+        public double leaveHours(String userId, Date startDate, Date endDate) {
+            UserLeave userLeave = leave.get(userId);
+            return userLeave == null ? 0 : userLeave.hoursBetween(epochDay(startDate), epochDay(endDate));
+        }
+
+        public double leaveDays(String userId, Date startDate, Date endDate) {
+            UserLeave userLeave = leave.get(userId);
+            return userLeave == null ? 0 : userLeave.daysBetween(epochDay(startDate), epochDay(endDate));
+        }
+
+        /**
+         * Working hours in the user's region minus their approved leave.
+         */
+        public double availableHours(String userId, Date startDate, Date endDate) {
+            return availableHours(userId, epochDay(startDate), epochDay(endDate));
+        }
+
+        public double availableHours(String userId, int fromDay, int toDay) {
+            double working = calendarOf(userId).hoursBetween(fromDay, toDay);
+            UserLeave userLeave = leave.get(userId);
+            return userLeave == null ? working : working - userLeave.hoursBetween(fromDay, toDay);
+        }
+    }
+
+    static final class RegionCalendar {
+
+        private final int firstDay;
+        private final boolean[] weekend;
+        private final double hoursPerDay;
+        private final Set<Integer> holidays;
+        // prefix[i] is the working hours of days firstDay .. firstDay + i - 1
+        private final double[] prefix;
+
+        RegionCalendar(int firstDay, int lastDay, boolean[] weekend, double hoursPerDay, Set<Integer> holidays) {
+            this.firstDay = firstDay;
+            this.weekend = weekend;
+            this.hoursPerDay = hoursPerDay;
+            this.holidays = holidays;
+            this.prefix = new double[lastDay - firstDay + 2];
+            for (int i = 0; i <= lastDay - firstDay; i++) {
+                prefix[i + 1] = prefix[i] + hoursOn(firstDay + i);
+            }
+        }
+
+        double hoursOn(int epochDay) {
+            // epoch day 0 was a Thursday, +3 makes Monday index 0
+            if (weekend[Math.floorMod(epochDay + 3, 7)] || holidays.contains(epochDay)) {
+                return 0;
+            }
+            return hoursPerDay;
+        }
+
+        double hoursBetween(int fromDay, int toDay) {
+            if (toDay < fromDay) {
+                return 0;
+            }
+            int lastDay = firstDay + prefix.length - 2;
+            int from = Math.max(fromDay, firstDay);
+            int to = Math.min(toDay, lastDay);
+            double hours = from <= to ? prefix[to - firstDay + 1] - prefix[from - firstDay] : 0;
+            // outside the precomputed years, walk the days
+            for (int day = fromDay; day <= Math.min(toDay, firstDay - 1); day++) {
+                hours += hoursOn(day);
+            }
+            for (int day = Math.max(fromDay, lastDay + 1); day <= toDay; day++) {
+                hours += hoursOn(day);
+            }
+            return hours;
+        }
+    }
+
+    static final class UserLeave {
+
+        private final int[] days;
+        // prefixDays[i] and prefixHours[i] cover days[0 .. i - 1]
+        private final double[] prefixDays;
+        private final double[] prefixHours;
+
+        UserLeave(TreeMap<Integer, Double> fractions, RegionCalendar calendar) {
+            days = new int[fractions.size()];
+            prefixDays = new double[days.length + 1];
+            prefixHours = new double[days.length + 1];
+            int i = 0;
+            for (Map.Entry<Integer, Double> entry : fractions.entrySet()) {
+                days[i] = entry.getKey();
+                prefixDays[i + 1] = prefixDays[i] + entry.getValue();
+                prefixHours[i + 1] = prefixHours[i] + entry.getValue() * calendar.hoursOn(entry.getKey());
+                i++;
+            }
+        }
+
+        double daysBetween(int fromDay, int toDay) {
+            if (toDay < fromDay) {
+                return 0;
+            }
+            return prefixDays[upperBound(toDay)] - prefixDays[lowerBound(fromDay)];
+        }
+
+        double hoursBetween(int fromDay, int toDay) {
+            if (toDay < fromDay) {
+                return 0;
+            }
+            return prefixHours[upperBound(toDay)] - prefixHours[lowerBound(fromDay)];
+        }
+
+        private int lowerBound(int day) {
+            int i = Arrays.binarySearch(days, day);
+            return i < 0 ? -i - 1 : i;
+        }
+
+        private int upperBound(int day) {
+            int i = Arrays.binarySearch(days, day);
+            return i < 0 ? -i - 1 : i + 1;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.servlets;
+
+import com.db.Dbfactory;
+import com.db.SchemaMigrator;
+import com.services.BudgetAlertService;
+import com.services.StampingPipeline;
+import com.services.TimeEntryColumnStore;
+import org.apache.log4j.Logger;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+@WebListener
+public class AppContextListener implements ServletContextListener {
+
+    static Logger logger = Logger.getRootLogger();
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        logger.info("AppContextListener.contextInitialized : ");
+        if (Boolean.parseBoolean(Dbfactory.getProperty("db.migrate.onStartup", "true"))) {
+            try {
+                SchemaMigrator.migrate();
+            } catch (Exception e) {
+                logger.error("AppContextListener schema migration failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        if (BudgetAlertService.isEnabled()) {
+            try {
+                BudgetAlertService.start();
+            } catch (Exception e) {
+                logger.error("AppContextListener budget alerts failed to start: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        if (TimeEntryColumnStore.isEnabled()) {
+            // load before traffic arrives rather than on the first report request
+            TimeEntryColumnStore.getInstance();
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        logger.info("AppContextListener.contextDestroyed : ");
+        RequestExecutors.shutdown();
+        StampingPipeline.shutdownInstance();
+        BudgetAlertService.shutdown();
+        Dbfactory.shutdown();
+    }
+}
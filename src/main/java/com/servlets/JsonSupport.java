@@ -0,0 +1,40 @@
+package com.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Shared Gson instance (thread-safe once built) and helpers that stream
+ * results to the response instead of building the JSON as a String first.
+ */
+public final class JsonSupport {
+
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ReportRowAdapters())
+            .create();
+
+    private JsonSupport() {
+    }
+
+    public static void write(HttpServletResponse response, int status, Object body) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        JsonWriter writer = new JsonWriter(response.getWriter());
+        if (body == null) {
+            writer.nullValue();
+        } else {
+            GSON.toJson(body, body.getClass(), writer);
+        }
+        writer.flush();
+    }
+
+    public static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        write(response, status, Collections.singletonMap("error", message));
+    }
+}
@@ -2,10 +2,14 @@ package com.servlets;
 
 
 import com.Dao.LoginDao;
+import com.beans.BulkImportResult;
 import com.beans.User;
 import com.beans.WorkingHour;
-import com.google.gson.Gson;
+import com.db.Dbfactory;
+import com.services.PayrollExportService;
+import com.services.ReportAdmission;
 import com.services.ReportingServices;
+import com.services.TimeEntryImportService;
 import org.apache.log4j.Logger;
 
 import javax.servlet.RequestDispatcher;
@@ -15,16 +19,27 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
-@WebServlet(name = "mainServlet", value = "/mainServlet")
+@WebServlet(name = "mainServlet", value = "/mainServlet", asyncSupported = true)
 public class MainServlet extends HttpServlet {
 
     static Logger logger = null;
 
+    private static final long stampingTimeoutMillis = Dbfactory.getIntProperty("stamping.async.timeoutMillis", 15000);
+    private static final long reportTimeoutMillis = Dbfactory.getIntProperty("reports.async.timeoutMillis", 60000);
+    private static final long downloadTimeoutMillis = Dbfactory.getIntProperty("reports.async.downloadTimeoutMillis", 300000);
+
 
     @Override
     public void init() {
@@ -67,9 +82,17 @@ public class MainServlet extends HttpServlet {
             } else if ("loadUsers".equals(action)) {
                 UsersJSONDisplay(request, response);
             } else if ("enter".equals(action) || "exit".equals(action)) {
-                cardStamping(request, response);
+                RequestExecutors.submit(RequestExecutors.INTERACTIVE, RequestExecutors.PRIORITY_NORMAL,
+                        stampingTimeoutMillis, request, response, MainServlet::sendError, this::cardStamping);
             } else if ("view".equals(action)) {
-                viewAllReports(request, response);
+                RequestExecutors.submit(RequestExecutors.REPORTS, RequestExecutors.PRIORITY_HIGH,
+                        reportTimeoutMillis, request, response, MainServlet::sendError, this::viewAllReports);
+            } else if ("downloadPayroll".equals(action)) {
+                RequestExecutors.submit(RequestExecutors.REPORTS, RequestExecutors.PRIORITY_LOW,
+                        downloadTimeoutMillis, request, response, MainServlet::sendError, this::downloadPayroll);
+            } else if ("importTimeEntries".equals(action)) {
+                RequestExecutors.submit(RequestExecutors.REPORTS, RequestExecutors.PRIORITY_LOW,
+                        downloadTimeoutMillis, request, response, MainServlet::sendError, this::importTimeEntries);
             } else {
                 Login(request, response);
             }
@@ -79,46 +102,137 @@ public class MainServlet extends HttpServlet {
     }
 
 
-    private void cardStamping(HttpServletRequest request, HttpServletResponse response)
-            throws IOException, ServletException, SQLException {
+    private void cardStamping(RequestExecutors.Job job) throws Exception {
         logger.info("MainServlet.cardStamping : ");
+        User user = job.getUser();
+        String action = job.getParameter("act");
+        // the lane thread is released while the stamp waits for its group commit
+        job.resumeAfter(ReportingServices.cardStampingAsync(user, action), (resumed, stamped, failure) -> {
+            if (failure != null) {
+                logger.error("MainServlet.cardStamping failed for " + user.getFullName() + ": " + failure.getMessage());
+            }
+            loadReportsPage(resumed, user);
+        });
+    }
 
-        HttpSession session = request.getSession();
+    private void viewAllReports(RequestExecutors.Job job) throws Exception {
+        logger.info("MainServlet.report : ");
+        loadReportsPage(job, job.getUser());
+    }
 
-        response.setContentType("text/plain");
-        PrintWriter out = response.getWriter();
-        User user = (User) session.getAttribute("currentUser");
-        String action = request.getParameter("act");
-        boolean isCardStampOK = ReportingServices.cardStamping(user, action);
-        List<WorkingHour> list = ReportingServices.fetchAllWorkingHoursByUser(user);
-        Gson gson = new Gson();
-        String listAsJSON = gson.toJson(list);
+
+    private void downloadPayroll(RequestExecutors.Job job) throws Exception {
+        logger.info("MainServlet.downloadPayroll : ");
+        if (!job.claim()) {
+            return;
+        }
+        HttpServletRequest request = job.getRequest();
+        HttpServletResponse response = job.getResponse();
+        java.sql.Date startDate;
+        java.sql.Date endDate;
+        try {
+            startDate = java.sql.Date.valueOf(request.getParameter("startDate"));
+            endDate = java.sql.Date.valueOf(request.getParameter("endDate"));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "startDate and endDate are required as yyyy-MM-dd");
+            return;
+        }
+        boolean billing = "billing".equals(request.getParameter("report"));
+        try {
+            ReportAdmission.call(billing ? ReportAdmission.BILLING : ReportAdmission.PAYROLL, () -> {
+                writePayrollCsv(job, startDate, endDate, billing);
+                return null;
+            });
+        } catch (ReportAdmission.RejectedException e) {
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+        } catch (SQLTimeoutException e) {
+            logger.error("MainServlet.downloadPayroll timed out: " + e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT, "Payroll query timed out");
+            }
+        }
+    }
+
+
+    private void writePayrollCsv(RequestExecutors.Job job, java.sql.Date startDate, java.sql.Date endDate,
+                                 boolean billing) throws IOException, SQLException {
+        HttpServletRequest request = job.getRequest();
+        HttpServletResponse response = job.getResponse();
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        boolean gzip = "true".equals(request.getParameter("gzip"))
+                || (acceptEncoding != null && acceptEncoding.contains("gzip"));
+
+        String fileName = (billing ? "billing_" + request.getParameter("projectId") : "payroll")
+                + "_" + startDate + "_" + endDate + ".csv";
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        OutputStream stream = response.getOutputStream();
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            stream = new GZIPOutputStream(stream, 64 * 1024);
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024)) {
+            if (billing) {
+                int projectId = parseIntParameter(job, "projectId", -1);
+                PayrollExportService.exportProjectBillingToCSV(projectId, startDate, endDate, out);
+            } else {
+                PayrollExportService.exportToCSV(startDate, endDate, out);
+            }
+        }
+    }
+
+
+    private void importTimeEntries(RequestExecutors.Job job) throws IOException {
+        logger.info("MainServlet.importTimeEntries : ");
+        // the body is still read from the live request; it is streamed, not copied
+        HttpServletRequest request = job.getRequest();
+        int chunkSize = parseIntParameter(job, "chunkSize", TimeEntryImportService.defaultChunkSize());
+        String contentType = request.getContentType();
+        BulkImportResult result;
+        if (contentType != null && contentType.startsWith("application/json")) {
+            result = TimeEntryImportService.importJson(request.getReader(), chunkSize);
+        } else {
+            result = TimeEntryImportService.importCsv(request.getReader(), chunkSize);
+        }
+        if (job.claim()) {
+            JsonSupport.write(job.getResponse(), HttpServletResponse.SC_OK, result);
+        }
+    }
+
+
+    private void loadReportsPage(RequestExecutors.Job job, User user) throws Exception {
+        int beforeId = parseIntParameter(job, "before", Integer.MAX_VALUE);
+        int pageSize = parseIntParameter(job, "pageSize", ReportingServices.DEFAULT_PAGE_SIZE);
+        List<WorkingHour> list = ReportingServices.fetchWorkingHoursPage(user, beforeId, pageSize);
+        if (!job.claim()) {
+            return;
+        }
+        HttpServletRequest request = job.getRequest();
         request.setAttribute("reports", list);
-        out.println(list);
-        RequestDispatcher dispatcher = request.getRequestDispatcher("reports.jsp");
-        dispatcher.forward(request, response);
+        if (list.size() == Math.min(pageSize, ReportingServices.MAX_PAGE_SIZE)) {
+            request.setAttribute("nextBefore", list.get(list.size() - 1).getIdentity());
+        }
+        job.dispatch("/reports.jsp");
+    }
+
 
+    private static void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        response.sendError(status, message);
     }
 
-    private void viewAllReports(HttpServletRequest request, HttpServletResponse response) throws SQLException {
+
+    private static int parseIntParameter(RequestExecutors.Job job, String name, int defaultValue) {
+        String value = job.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
         try {
-            logger.info("MainServlet.report : ");
-            response.setContentType("text/plain");
-            PrintWriter out = response.getWriter();
-            HttpSession session = request.getSession();
-            User user = (User)session.getAttribute("currentUser");
-            List<WorkingHour> list = ReportingServices.fetchAllWorkingHoursByUser(user);
-            //Gson gson = new Gson();
-            //String listAsJSON = gson.toJson(list);
-            //System.out.println(listAsJSON);
-            //request.setAttribute("reports", listAsJSON);
-            request.setAttribute("reports", list);
-            out.println(list);
-            RequestDispatcher dispatcher = request.getRequestDispatcher("reports.jsp");
-            dispatcher.forward(request, response);
-        } catch (Exception e) {
-            logger.error(e.getMessage());
-            e.printStackTrace();
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.error("MainServlet.parseIntParameter invalid " + name + ": " + value);
+            return defaultValue;
         }
     }
 
@@ -156,8 +270,7 @@ public class MainServlet extends HttpServlet {
         response.setContentType("text/plain");
         PrintWriter out = response.getWriter();
         List<User> list = ReportingServices.fetchAllUsers();
-        Gson gson = new Gson();
-        String listAsJSON = gson.toJson(list);
+        String listAsJSON = JsonSupport.GSON.toJson(list);
         System.out.println(listAsJSON);
         request.setAttribute("list", listAsJSON);
         out.println(listAsJSON);
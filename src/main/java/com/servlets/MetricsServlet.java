@@ -0,0 +1,229 @@
+package com.servlets;
+
+import com.db.Dbfactory;
+import com.db.LatencyHistogram;
+import com.db.LeakDetector;
+import com.db.PoolStats;
+import com.db.QueryTimeouts;
+import com.db.SqlMetrics;
+import com.services.BudgetAlertService;
+import com.services.ReportAdmission;
+import com.services.ReportCoalescer;
+import org.apache.log4j.Logger;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Prometheus text exposition of the SQL statement metrics and connection pool
+ * state. /metrics/slow-queries returns the recent slow query log as JSON and
+ * /metrics/leaks the connections and statements held past the leak threshold.
+ */
+@WebServlet(name = "metricsServlet", urlPatterns = {"/metrics", "/metrics/slow-queries", "/metrics/leaks"})
+public class MetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    static Logger logger = Logger.getRootLogger();
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if ("/metrics/slow-queries".equals(request.getServletPath())) {
+            JsonSupport.write(response, HttpServletResponse.SC_OK, SqlMetrics.getSlowQueries());
+            return;
+        }
+        if ("/metrics/leaks".equals(request.getServletPath())) {
+            JsonSupport.write(response, HttpServletResponse.SC_OK, LeakDetector.getSuspectedLeaks());
+            return;
+        }
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        PrintWriter out = response.getWriter();
+        writeSqlMetrics(out);
+        writePoolMetrics(out);
+        writeLeakMetrics(out);
+        writeBudgetAlertMetrics(out);
+        writeCoalescerMetrics(out);
+        writeAdmissionMetrics(out);
+        out.flush();
+    }
+
+    private void writeSqlMetrics(PrintWriter out) {
+        out.println("# HELP reporting_sql_duration_seconds Statement execution time by SQL template.");
+        out.println("# TYPE reporting_sql_duration_seconds summary");
+        for (SqlMetrics.StatementStats stats : SqlMetrics.getStatementStats()) {
+            String label = "statement=\"" + escape(stats.getTemplate()) + "\"";
+            LatencyHistogram latency = stats.getLatency();
+            for (double q : QUANTILES) {
+                out.println("reporting_sql_duration_seconds{" + label + ",quantile=\"" + q + "\"} "
+                        + seconds(latency.percentileMicros(q)));
+            }
+            out.println("reporting_sql_duration_seconds_sum{" + label + "} " + seconds(latency.getSumMicros()));
+            out.println("reporting_sql_duration_seconds_count{" + label + "} " + latency.getCount());
+        }
+
+        out.println("# HELP reporting_sql_duration_seconds_max Slowest execution seen by SQL template.");
+        out.println("# TYPE reporting_sql_duration_seconds_max gauge");
+        for (SqlMetrics.StatementStats stats : SqlMetrics.getStatementStats()) {
+            out.println("reporting_sql_duration_seconds_max{statement=\"" + escape(stats.getTemplate()) + "\"} "
+                    + seconds(stats.getLatency().getMaxMicros()));
+        }
+
+        out.println("# HELP reporting_sql_rows_total Rows read from result sets by SQL template.");
+        out.println("# TYPE reporting_sql_rows_total counter");
+        for (SqlMetrics.StatementStats stats : SqlMetrics.getStatementStats()) {
+            out.println("reporting_sql_rows_total{statement=\"" + escape(stats.getTemplate()) + "\"} "
+                    + stats.getRows());
+        }
+
+        out.println("# HELP reporting_sql_errors_total Failed executions by SQL template.");
+        out.println("# TYPE reporting_sql_errors_total counter");
+        for (SqlMetrics.StatementStats stats : SqlMetrics.getStatementStats()) {
+            out.println("reporting_sql_errors_total{statement=\"" + escape(stats.getTemplate()) + "\"} "
+                    + stats.getErrors());
+        }
+    }
+
+    private void writePoolMetrics(PrintWriter out) {
+        PoolStats pool = Dbfactory.getPoolStats();
+        gauge(out, "reporting_db_pool_max_connections", "Configured pool size limit.", pool.getMaxSize());
+        gauge(out, "reporting_db_pool_open_connections", "Physical connections currently open.", pool.getOpenConnections());
+        gauge(out, "reporting_db_pool_active_connections", "Connections checked out.", pool.getActiveConnections());
+        gauge(out, "reporting_db_pool_idle_connections", "Connections idle in the pool.", pool.getIdleConnections());
+        gauge(out, "reporting_db_pool_waiting_threads", "Threads waiting for a connection.", pool.getWaitingThreads());
+        counter(out, "reporting_db_pool_borrows_total", "Connections handed out.", pool.getBorrowCount());
+        counter(out, "reporting_db_pool_timeouts_total", "Borrow attempts that timed out.", pool.getTimeoutCount());
+        counter(out, "reporting_db_pool_validation_failures_total", "Idle connections that failed validation.",
+                pool.getValidationFailureCount());
+    }
+
+    private void writeLeakMetrics(PrintWriter out) {
+        counter(out, "reporting_db_statements_auto_closed_total",
+                "Statements still open when their connection was returned.", LeakDetector.getUnclosedStatementCount());
+        if (!LeakDetector.isEnabled()) {
+            return;
+        }
+        gauge(out, "reporting_db_outstanding_connections", "Connections handed out and not yet closed.",
+                LeakDetector.getOutstandingConnections());
+        gauge(out, "reporting_db_outstanding_statements", "Statements opened and not yet closed.",
+                LeakDetector.getOutstandingStatements());
+        counter(out, "reporting_db_leaked_connections_total", "Connections held past the leak threshold.",
+                LeakDetector.getLeakedConnectionCount());
+        counter(out, "reporting_db_leaked_statements_total", "Statements held past the leak threshold.",
+                LeakDetector.getLeakedStatementCount());
+    }
+
+    private void writeBudgetAlertMetrics(PrintWriter out) {
+        if (!BudgetAlertService.isEnabled()) {
+            return;
+        }
+        gauge(out, "reporting_budget_tracked_projects", "Projects with running budget totals.",
+                BudgetAlertService.getTrackedProjectCount());
+        counter(out, "reporting_budget_alerts_total", "Budget thresholds crossed since startup.",
+                BudgetAlertService.getAlertCount());
+    }
+
+    private void writeCoalescerMetrics(PrintWriter out) {
+        if (!ReportCoalescer.isEnabled()) {
+            return;
+        }
+        counter(out, "reporting_report_computations_total", "Report computations actually run.",
+                ReportCoalescer.getComputationCount());
+        counter(out, "reporting_report_coalesced_total", "Report requests served from another caller's computation.",
+                ReportCoalescer.getSharedCount());
+        gauge(out, "reporting_report_inflight", "Report computations in flight or kept for the TTL.",
+                ReportCoalescer.getCachedCount());
+    }
+
+    private void writeAdmissionMetrics(PrintWriter out) {
+        counter(out, "reporting_db_query_timeouts_total", "Statements cancelled by their JDBC query timeout.",
+                QueryTimeouts.getTimeoutCount());
+
+        RequestExecutors.Lane[] lanes = {RequestExecutors.INTERACTIVE, RequestExecutors.REPORTS};
+        out.println("# HELP reporting_request_lane_active Requests running on a lane thread.");
+        out.println("# TYPE reporting_request_lane_active gauge");
+        for (RequestExecutors.Lane lane : lanes) {
+            out.println("reporting_request_lane_active{lane=\"" + lane.getName() + "\"} " + lane.getActiveCount());
+        }
+        out.println("# HELP reporting_request_lane_queued Requests waiting for a lane thread.");
+        out.println("# TYPE reporting_request_lane_queued gauge");
+        for (RequestExecutors.Lane lane : lanes) {
+            out.println("reporting_request_lane_queued{lane=\"" + lane.getName() + "\"} " + lane.getQueuedCount());
+        }
+        out.println("# HELP reporting_request_lane_rejected_total Requests refused with 503 because the lane was full.");
+        out.println("# TYPE reporting_request_lane_rejected_total counter");
+        for (RequestExecutors.Lane lane : lanes) {
+            out.println("reporting_request_lane_rejected_total{lane=\"" + lane.getName() + "\"} "
+                    + lane.getRejectedCount());
+        }
+        out.println("# HELP reporting_request_lane_timeouts_total Requests that ran past their timeout.");
+        out.println("# TYPE reporting_request_lane_timeouts_total counter");
+        for (RequestExecutors.Lane lane : lanes) {
+            out.println("reporting_request_lane_timeouts_total{lane=\"" + lane.getName() + "\"} "
+                    + lane.getTimedOutCount());
+        }
+
+        if (!ReportAdmission.isEnabled()) {
+            return;
+        }
+        out.println("# HELP reporting_admission_active Heavy reports running by report type.");
+        out.println("# TYPE reporting_admission_active gauge");
+        for (ReportAdmission.Bulkhead bulkhead : ReportAdmission.getBulkheads()) {
+            out.println("reporting_admission_active{type=\"" + bulkhead.getType() + "\"} " + bulkhead.getActiveCount());
+        }
+        out.println("# HELP reporting_admission_queued Heavy reports waiting for admission by report type.");
+        out.println("# TYPE reporting_admission_queued gauge");
+        for (ReportAdmission.Bulkhead bulkhead : ReportAdmission.getBulkheads()) {
+            out.println("reporting_admission_queued{type=\"" + bulkhead.getType() + "\"} " + bulkhead.getQueuedCount());
+        }
+        out.println("# HELP reporting_admission_admitted_total Heavy reports admitted by report type.");
+        out.println("# TYPE reporting_admission_admitted_total counter");
+        for (ReportAdmission.Bulkhead bulkhead : ReportAdmission.getBulkheads()) {
+            out.println("reporting_admission_admitted_total{type=\"" + bulkhead.getType() + "\"} "
+                    + bulkhead.getAdmittedCount());
+        }
+        out.println("# HELP reporting_admission_rejected_total Heavy reports refused with 503 by report type.");
+        out.println("# TYPE reporting_admission_rejected_total counter");
+        for (ReportAdmission.Bulkhead bulkhead : ReportAdmission.getBulkheads()) {
+            out.println("reporting_admission_rejected_total{type=\"" + bulkhead.getType() + "\"} "
+                    + bulkhead.getRejectedCount());
+        }
+        out.println("# HELP reporting_admission_wait_seconds Time admitted reports waited for a slot.");
+        out.println("# TYPE reporting_admission_wait_seconds summary");
+        for (ReportAdmission.Bulkhead bulkhead : ReportAdmission.getBulkheads()) {
+            String label = "type=\"" + bulkhead.getType() + "\"";
+            LatencyHistogram waits = bulkhead.getWaits();
+            for (double q : QUANTILES) {
+                out.println("reporting_admission_wait_seconds{" + label + ",quantile=\"" + q + "\"} "
+                        + seconds(waits.percentileMicros(q)));
+            }
+            out.println("reporting_admission_wait_seconds_sum{" + label + "} " + seconds(waits.getSumMicros()));
+            out.println("reporting_admission_wait_seconds_count{" + label + "} " + waits.getCount());
+        }
+    }
+
+    static void gauge(PrintWriter out, String name, String help, double value) {
+        out.println("# HELP " + name + " " + help);
+        out.println("# TYPE " + name + " gauge");
+        out.println(name + " " + value);
+    }
+
+    static void counter(PrintWriter out, String name, String help, long value) {
+        out.println("# HELP " + name + " " + help);
+        out.println("# TYPE " + name + " counter");
+        out.println(name + " " + value);
+    }
+
+    static String seconds(long micros) {
+        return String.valueOf(micros / 1_000_000.0);
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,302 @@
+package com.servlets;
+
+import com.beans.Project;
+import com.db.Dbfactory;
+import com.services.BudgetAlertService;
+import com.services.LeaveManagementService;
+import com.services.OvertimeCalculationService;
+import com.services.PayrollExportService;
+import com.services.ProjectBudgetService;
+import com.services.RateTableService;
+import com.services.ReportAdmission;
+import com.services.ReportCoalescer;
+import com.services.TeamDashboardService;
+import com.services.TeamSummaryService;
+import com.services.TimesheetApprovalService;
+import com.services.UtilizationRateService;
+import com.services.WeeklyReportService;
+import com.services.WorkingCalendarService;
+import org.apache.log4j.Logger;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.SQLTimeoutException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * JSON API over the reporting services. Routes are looked up by
+ * "METHOD /path" in a hash map; parameters come from the query string,
+ * dates as yyyy-MM-dd and timestamps as yyyy-MM-dd HH:mm:ss.
+ */
+@WebServlet(name = "reportApiServlet", value = "/api/*", asyncSupported = true)
+public class ReportApiServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    static Logger logger = Logger.getRootLogger();
+
+    interface ApiHandler {
+        Object handle(RequestExecutors.Job job) throws Exception;
+    }
+
+    private final Map<String, ApiHandler> routes = new HashMap<>();
+    private final Set<String> knownPaths = new HashSet<>();
+    // team-wide reports, queued behind single-user and single-project requests
+    private final Set<String> heavyPaths = new HashSet<>();
+    private final long timeoutMillis = Dbfactory.getIntProperty("api.async.timeoutMillis", 30000);
+
+    @Override
+    public void init() {
+        logger.info("ReportApiServlet.init : ");
+
+        coalesced("/team/summary", r -> TeamSummaryService.getTeamSummary(date(r, "startDate"), date(r, "endDate")));
+        coalesced("/team/members", r -> TeamSummaryService.getTeamMembersSummary(date(r, "startDate"), date(r, "endDate")));
+        coalesced("/team/projects", r -> TeamSummaryService.getTeamProjectsSummary(date(r, "startDate"), date(r, "endDate")));
+        coalesced("/team/productivity", r -> TeamSummaryService.getTeamProductivity(date(r, "startDate"), date(r, "endDate")));
+        coalesced("/team/top-performers", r -> TeamSummaryService.getTopPerformers(date(r, "startDate"), date(r, "endDate"),
+                intParam(r, "limit", 10)));
+        coalesced("/team/dashboard", r -> TeamDashboardService.getTeamDashboard(date(r, "startDate"), date(r, "endDate")));
+        coalesced("/team/department", r -> TeamSummaryService.getDepartmentSummary(param(r, "department"),
+                date(r, "startDate"), date(r, "endDate")));
+
+        get("/utilization/user", r -> UtilizationRateService.calculateUtilizationRate(param(r, "userId"),
+                date(r, "startDate"), date(r, "endDate")));
+        coalesced("/utilization/team", r -> UtilizationRateService.getTeamUtilizationRows(date(r, "startDate"),
+                date(r, "endDate")));
+        get("/utilization/project", r -> UtilizationRateService.calculateProjectUtilization(intParam(r, "projectId"),
+                date(r, "startDate"), date(r, "endDate")));
+        get("/utilization/trend", r -> UtilizationRateService.getUtilizationTrend(param(r, "userId"),
+                intParam(r, "year")));
+
+        get("/projects/budget", r -> ProjectBudgetService.getBudgetVsActual(intParam(r, "projectId")));
+        coalesced("/projects/budget-status", r -> ProjectBudgetService.getAllProjectsBudgetStatus());
+        get("/projects/milestones", r -> ProjectBudgetService.getProjectMilestones(intParam(r, "projectId"),
+                date(r, "startDate"), date(r, "endDate")));
+        get("/projects/burn", r -> ProjectBudgetService.getBurnStatus(intParam(r, "projectId"), date(r, "asOf"),
+                intParam(r, "windowDays", 30)));
+        get("/projects/burn-down", r -> ProjectBudgetService.getBurnDown(date(r, "asOf"), intParam(r, "windowDays", 30)));
+        get("/projects/alerts", r -> BudgetAlertService.getRecentAlerts(longParam(r, "afterId", 0)));
+        get("/projects/budget-live", r -> BudgetAlertService.getLiveBudgetStatus());
+        get("/projects/contribution", r -> ProjectBudgetService.getTeamContributionRows(intParam(r, "projectId")));
+        post("/projects", r -> result(ProjectBudgetService.createProject(
+                JsonSupport.GSON.fromJson(r.getRequest().getReader(), Project.class))));
+        put("/projects/budget", r -> result(ProjectBudgetService.updateProjectBudget(intParam(r, "projectId"),
+                doubleParam(r, "budgetHours"))));
+
+        get("/leave/requests", r -> LeaveManagementService.getLeaveRequestsByUser(param(r, "userId")));
+        get("/leave/pending", r -> LeaveManagementService.getPendingLeaveRequests());
+        get("/leave/balance", r -> LeaveManagementService.getLeaveBalance(param(r, "userId"), intParam(r, "year")));
+        post("/leave/requests", r -> result(LeaveManagementService.submitLeaveRequest(param(r, "userId"),
+                param(r, "leaveType"), timestamp(r, "startDate"), timestamp(r, "endDate"), r.getParameter("reason"))));
+        post("/leave/approve", r -> result(LeaveManagementService.approveLeaveRequest(intParam(r, "leaveId"),
+                param(r, "approverId"), r.getParameter("comments"))));
+        post("/leave/reject", r -> result(LeaveManagementService.rejectLeaveRequest(intParam(r, "leaveId"),
+                param(r, "approverId"), r.getParameter("comments"))));
+
+        get("/timesheets", r -> TimesheetApprovalService.getTimesheetsByUser(param(r, "userId")));
+        get("/timesheets/pending", r -> TimesheetApprovalService.getPendingApprovals(r.getParameter("approverId")));
+        post("/timesheets", r -> result(TimesheetApprovalService.submitTimesheetForApproval(param(r, "userId"),
+                timestamp(r, "weekStart"), timestamp(r, "weekEnd"))));
+        post("/timesheets/approve", r -> result(TimesheetApprovalService.approveTimesheet(intParam(r, "approvalId"),
+                param(r, "approverId"), r.getParameter("comments"))));
+        post("/timesheets/reject", r -> result(TimesheetApprovalService.rejectTimesheet(intParam(r, "approvalId"),
+                param(r, "approverId"), r.getParameter("comments"))));
+
+        coalesced("/payroll/summary", r -> PayrollExportService.getPayrollLines(date(r, "startDate"), date(r, "endDate")));
+        coalesced("/payroll/totals", r -> PayrollExportService.getPayrollTotals(date(r, "startDate"), date(r, "endDate")));
+
+        get("/rates/user", r -> RateTableService.getUserPayRates(param(r, "userId")));
+        put("/rates/user", r -> result(RateTableService.setUserPayRate(param(r, "userId"),
+                date(r, "effectiveFrom"), doubleParam(r, "hourlyRate"))));
+        get("/rates/project", r -> RateTableService.getProjectBillRates(intParam(r, "projectId")));
+        put("/rates/project", r -> result(RateTableService.setProjectBillRate(intParam(r, "projectId"),
+                date(r, "effectiveFrom"), doubleParam(r, "hourlyRate"))));
+
+        get("/calendar/available", r -> WorkingCalendarService.getAvailableHours(param(r, "userId"),
+                date(r, "startDate"), date(r, "endDate")));
+        post("/calendar/holidays", r -> result(WorkingCalendarService.addHoliday(param(r, "region"),
+                date(r, "date"), r.getParameter("name"))));
+
+        get("/reports/weekly", r -> WeeklyReportService.generateWeeklyReport(param(r, "userId"), date(r, "weekStart")));
+        get("/reports/monthly", r -> WeeklyReportService.generateMonthlyReport(param(r, "userId"),
+                intParam(r, "year"), intParam(r, "month")));
+        get("/reports/daily", r -> WeeklyReportService.getDailyHours(param(r, "userId"),
+                date(r, "startDate"), date(r, "endDate")));
+
+        get("/overtime/weekly", r -> OvertimeCalculationService.calculateWeeklyOvertime(param(r, "userId"),
+                date(r, "weekStart")));
+        get("/overtime/daily", r -> OvertimeCalculationService.calculateDailyOvertime(param(r, "userId"),
+                date(r, "startDate"), date(r, "endDate")));
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getPathInfo() == null ? "/" : request.getPathInfo();
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        logger.info("ReportApiServlet.service : " + request.getMethod() + " " + path);
+
+        ApiHandler handler = routes.get(request.getMethod() + " " + path);
+        if (handler == null) {
+            if (knownPaths.contains(path)) {
+                JsonSupport.writeError(response, HttpServletResponse.SC_METHOD_NOT_ALLOWED,
+                        request.getMethod() + " not supported on " + path);
+            } else {
+                JsonSupport.writeError(response, HttpServletResponse.SC_NOT_FOUND, "No route for " + path);
+            }
+            return;
+        }
+
+        int priority = heavyPaths.contains(path) ? RequestExecutors.PRIORITY_LOW : RequestExecutors.PRIORITY_HIGH;
+        String route = path;
+        RequestExecutors.submit(RequestExecutors.REPORTS, priority, timeoutMillis, request, response,
+                JsonSupport::writeError, job -> respond(job, route, handler));
+    }
+
+    private void respond(RequestExecutors.Job job, String path, ApiHandler handler) throws IOException {
+        int status = HttpServletResponse.SC_OK;
+        int retryAfter = 0;
+        Object body;
+        try {
+            body = handler.handle(job);
+        } catch (ReportAdmission.RejectedException e) {
+            status = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+            retryAfter = e.getRetryAfterSeconds();
+            body = Collections.singletonMap("error", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = HttpServletResponse.SC_BAD_REQUEST;
+            body = Collections.singletonMap("error", e.getMessage());
+        } catch (SQLTimeoutException e) {
+            logger.error("ReportApiServlet " + path + " timed out: " + e.getMessage());
+            status = HttpServletResponse.SC_GATEWAY_TIMEOUT;
+            body = Collections.singletonMap("error", "Report query timed out");
+        } catch (Exception e) {
+            logger.error("ReportApiServlet " + path + " failed: " + e.getMessage());
+            e.printStackTrace();
+            status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            body = Collections.singletonMap("error", "Internal error");
+        }
+        if (job.claim()) {
+            if (retryAfter > 0) {
+                job.getResponse().setHeader("Retry-After", String.valueOf(retryAfter));
+            }
+            JsonSupport.write(job.getResponse(), status, body);
+        }
+    }
+
+    private void get(String path, ApiHandler handler) {
+        route("GET", path, handler);
+    }
+
+    private void post(String path, ApiHandler handler) {
+        route("POST", path, handler);
+    }
+
+    private void put(String path, ApiHandler handler) {
+        route("PUT", path, handler);
+    }
+
+    /**
+     * A GET whose concurrent identical requests share one computation, keyed
+     * on the path and the sorted query parameters. The computation is admitted
+     * through the bulkhead for its report type, the path's first segment.
+     */
+    private void coalesced(String path, ApiHandler handler) {
+        heavyPaths.add(path);
+        String type = path.substring(1, path.indexOf('/', 1));
+        get(path, r -> ReportCoalescer.call(path + "?" + canonicalQuery(r),
+                () -> ReportAdmission.call(type, () -> handler.handle(r))));
+    }
+
+    private void route(String method, String path, ApiHandler handler) {
+        routes.put(method + " " + path, handler);
+        knownPaths.add(path);
+    }
+
+    static String canonicalQuery(RequestExecutors.Job job) {
+        StringBuilder query = new StringBuilder();
+        for (Map.Entry<String, String[]> entry : new TreeMap<>(job.getParameterMap()).entrySet()) {
+            if (query.length() > 0) {
+                query.append('&');
+            }
+            query.append(entry.getKey()).append('=').append(String.join(",", entry.getValue()));
+        }
+        return query.toString();
+    }
+
+    private static Map<String, Boolean> result(boolean success) {
+        return Collections.singletonMap("success", success);
+    }
+
+    static String param(RequestExecutors.Job job, String name) {
+        String value = job.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    static Date date(RequestExecutors.Job job, String name) {
+        String value = param(job, name);
+        try {
+            return Date.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(name + " must be yyyy-MM-dd: " + value);
+        }
+    }
+
+    static Timestamp timestamp(RequestExecutors.Job job, String name) {
+        String value = param(job, name);
+        try {
+            return Timestamp.valueOf(value.length() == 10 ? value + " 00:00:00" : value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(name + " must be yyyy-MM-dd[ HH:mm:ss]: " + value);
+        }
+    }
+
+    static int intParam(RequestExecutors.Job job, String name) {
+        String value = param(job, name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer: " + value);
+        }
+    }
+
+    static int intParam(RequestExecutors.Job job, String name, int defaultValue) {
+        String value = job.getParameter(name);
+        return value == null || value.isEmpty() ? defaultValue : intParam(job, name);
+    }
+
+    static long longParam(RequestExecutors.Job job, String name, long defaultValue) {
+        String value = job.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer: " + value);
+        }
+    }
+
+    static double doubleParam(RequestExecutors.Job job, String name) {
+        String value = param(job, name);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: " + value);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.servlets;
+
+import com.beans.ContributionRow;
+import com.beans.DailyHours;
+import com.beans.PayrollLine;
+import com.beans.UtilizationRow;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.sql.Date;
+
+/**
+ * Hand-written Gson adapters for the typed report rows. They write the same
+ * keys the map-based services return, field by field, without reflection.
+ * Reading is left to Gson's reflective adapter for the bean, so fromJson
+ * still works on the shared instance and takes the bean's field names.
+ * Doubles that are NaN or infinite are written as null, since the writer
+ * Gson hands adapters is lenient and would emit them as invalid JSON.
+ */
+final class ReportRowAdapters implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        TypeAdapter<Date> dates = gson.getAdapter(Date.class);
+        if (raw == PayrollLine.class) {
+            return (TypeAdapter<T>) new RowAdapter<PayrollLine>(delegate(gson, PayrollLine.class)) {
+                @Override
+                void writeFields(JsonWriter out, PayrollLine line) throws IOException {
+                    out.name("employeeId").value(line.getUserId());
+                    out.name("employeeName").value(line.getFullName());
+                    out.name("email").value(line.getEmail());
+                    number(out.name("totalHours"), line.getTotalHours());
+                    number(out.name("regularHours"), line.getRegularHours());
+                    number(out.name("overtimeHours"), line.getOvertimeHours());
+                    number(out.name("dailyOvertimeHours"), line.getDailyOvertimeHours());
+                    number(out.name("weeklyOvertimeHours"), line.getWeeklyOvertimeHours());
+                    number(out.name("billableHours"), line.getBillableHours());
+                    number(out.name("nonBillableHours"), line.getNonBillableHours());
+                    out.name("daysWorked").value(line.getDaysWorked());
+                    number(out.name("availableHours"), line.getAvailableHours());
+                    number(out.name("hourlyRate"), line.getHourlyRate());
+                    number(out.name("regularPay"), line.getRegularPay());
+                    number(out.name("overtimePay"), line.getOvertimePay());
+                    number(out.name("grossPay"), line.getGrossPay());
+                    out.name("periodStart");
+                    dates.write(out, line.getPeriodStart());
+                    out.name("periodEnd");
+                    dates.write(out, line.getPeriodEnd());
+                }
+            };
+        }
+        if (raw == UtilizationRow.class) {
+            return (TypeAdapter<T>) new RowAdapter<UtilizationRow>(delegate(gson, UtilizationRow.class)) {
+                @Override
+                void writeFields(JsonWriter out, UtilizationRow row) throws IOException {
+                    out.name("userId").value(row.getUserId());
+                    out.name("userName").value(row.getUserName());
+                    number(out.name("totalHours"), row.getTotalHours());
+                    number(out.name("billableHours"), row.getBillableHours());
+                    number(out.name("availableHours"), row.getAvailableHours());
+                    number(out.name("utilizationRate"), row.getUtilizationRate());
+                    number(out.name("billableRate"), row.getBillableRate());
+                }
+            };
+        }
+        if (raw == DailyHours.class) {
+            return (TypeAdapter<T>) new RowAdapter<DailyHours>(delegate(gson, DailyHours.class)) {
+                @Override
+                void writeFields(JsonWriter out, DailyHours day) throws IOException {
+                    out.name("date");
+                    dates.write(out, day.getDate());
+                    number(out.name("totalHours"), day.getTotalHours());
+                    number(out.name("billableHours"), day.getBillableHours());
+                    number(out.name("nonBillableHours"), day.getNonBillableHours());
+                }
+            };
+        }
+        if (raw == ContributionRow.class) {
+            return (TypeAdapter<T>) new RowAdapter<ContributionRow>(delegate(gson, ContributionRow.class)) {
+                @Override
+                void writeFields(JsonWriter out, ContributionRow row) throws IOException {
+                    out.name("userId").value(row.getUserId());
+                    out.name("userName").value(row.getUserName());
+                    number(out.name("totalHours"), row.getTotalHours());
+                    number(out.name("billableHours"), row.getBillableHours());
+                    out.name("entryCount").value(row.getEntryCount());
+                    number(out.name("contributionPercentage"), row.getContributionPercentage());
+                }
+            };
+        }
+        return null;
+    }
+
+    private static void number(JsonWriter out, double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // keep the key even when the writer drops null fields
+            boolean serializeNulls = out.getSerializeNulls();
+            out.setSerializeNulls(true);
+            out.nullValue();
+            out.setSerializeNulls(serializeNulls);
+        } else {
+            out.value(value);
+        }
+    }
+
+    private <R> TypeAdapter<R> delegate(Gson gson, Class<R> type) {
+        return gson.getDelegateAdapter(this, TypeToken.get(type));
+    }
+
+    private abstract static class RowAdapter<R> extends TypeAdapter<R> {
+
+        private final TypeAdapter<R> reader;
+
+        RowAdapter(TypeAdapter<R> reader) {
+            this.reader = reader;
+        }
+
+        abstract void writeFields(JsonWriter out, R row) throws IOException;
+
+        @Override
+        public void write(JsonWriter out, R row) throws IOException {
+            if (row == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeFields(out, row);
+            out.endObject();
+        }
+
+        @Override
+        public R read(JsonReader in) throws IOException {
+            return reader.read(in);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.servlets;
+
+import com.beans.User;
+import com.db.Dbfactory;
+import org.apache.log4j.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs servlet work off the container threads through AsyncContext, on two
+ * bounded lanes: interactive for card stamping and reports for everything
+ * heavier, so month-end reporting cannot hold the threads clock-ins need.
+ * Each lane has a fixed number of threads and a bounded queue; a full lane
+ * answers 503 right away. Queued work runs highest priority first, then in
+ * arrival order. A request that times out or whose client goes away is
+ * taken off the queue, or has its worker interrupted if already running.
+ * The request parameters and session user are copied before the work is
+ * queued, since the container may recycle the request once it times out.
+ */
+public final class RequestExecutors {
+
+    static Logger logger = Logger.getRootLogger();
+
+    public static final int PRIORITY_HIGH = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_LOW = 2;
+
+    /**
+     * Handles one request on a lane thread. Read parameters and the user from
+     * the job, and call job.claim() before touching the request or response;
+     * false means the request already timed out or was abandoned and nothing
+     * should be written.
+     */
+    interface Work {
+        void run(Job job) throws Exception;
+    }
+
+    /**
+     * The rest of a job's work once the stage it waited on has completed;
+     * failure is null when the stage completed normally.
+     */
+    interface Continuation<T> {
+        void run(Job job, T value, Throwable failure) throws Exception;
+    }
+
+    interface ErrorWriter {
+        void write(HttpServletResponse response, int status, String message) throws IOException;
+    }
+
+    public static final Lane INTERACTIVE = new Lane("interactive",
+            Dbfactory.getIntProperty("executor.interactive.threads", 8),
+            Dbfactory.getIntProperty("executor.interactive.queueSize", 200));
+    public static final Lane REPORTS = new Lane("reports",
+            Dbfactory.getIntProperty("executor.reports.threads", 4),
+            Dbfactory.getIntProperty("executor.reports.queueSize", 50));
+
+    private static final int retryAfterSeconds = Dbfactory.getIntProperty("executor.retryAfterSeconds", 5);
+
+    private RequestExecutors() {
+    }
+
+    /**
+     * Runs the work on the lane under an AsyncContext with the given timeout,
+     * or inline when the container did not enable async for the servlet.
+     */
+    static void submit(Lane lane, int priority, long timeoutMillis, HttpServletRequest request,
+                       HttpServletResponse response, ErrorWriter errors, Work work) throws IOException {
+        if (!request.isAsyncSupported()) {
+            try {
+                work.run(new Job(null, request, response, errors, lane, priority, work));
+            } catch (Exception e) {
+                logger.error("RequestExecutors " + lane.name + " work failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (!lane.permits.tryAcquire()) {
+            lane.rejected.incrementAndGet();
+            logger.warn("RequestExecutors " + lane.name + " lane full, rejecting " + request.getRequestURI());
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            errors.write(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server busy, try again shortly");
+            return;
+        }
+        AsyncContext context = request.startAsync(request, response);
+        context.setTimeout(timeoutMillis);
+        Job job = new Job(context, request, response, errors, lane, priority, work);
+        context.addListener(job);
+        lane.pool.execute(job);
+    }
+
+    public static void shutdown() {
+        INTERACTIVE.pool.shutdownNow();
+        REPORTS.pool.shutdownNow();
+    }
+
+    public static final class Lane {
+
+        private final String name;
+        private final ThreadPoolExecutor pool;
+        // running plus queued, so the priority queue stays bounded
+        private final Semaphore permits;
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+
+        private Lane(String name, int threads, int queueSize) {
+            this.name = name;
+            this.permits = new Semaphore(threads + queueSize);
+            AtomicInteger count = new AtomicInteger();
+            this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new PriorityBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "requests-" + name + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getActiveCount() {
+            return pool.getActiveCount();
+        }
+
+        public int getQueuedCount() {
+            return pool.getQueue().size();
+        }
+
+        public long getRejectedCount() {
+            return rejected.get();
+        }
+
+        public long getTimedOutCount() {
+            return timedOut.get();
+        }
+    }
+
+    static final class Job implements Runnable, Comparable<Job>, AsyncListener {
+
+        private final AsyncContext context;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final ErrorWriter errors;
+        private final Lane lane;
+        private final int priority;
+        private final long sequence;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final Map<String, String[]> parameters;
+        private final User user;
+        private volatile Work work;
+        // the lane thread running this job; set, cleared and interrupted under the job's lock
+        private Thread runner;
+        private boolean cancelled;
+        private volatile boolean dispatched;
+        // counts down from 2: the suspended run ending and the awaited stage completing
+        private final AtomicInteger resumeGate = new AtomicInteger();
+        private volatile boolean suspended;
+
+        private Job(AsyncContext context, HttpServletRequest request, HttpServletResponse response,
+                    ErrorWriter errors, Lane lane, int priority, Work work) {
+            this.context = context;
+            this.request = request;
+            this.response = response;
+            this.errors = errors;
+            this.lane = lane;
+            this.priority = priority;
+            this.work = work;
+            this.sequence = lane.sequence.incrementAndGet();
+            this.parameters = Collections.unmodifiableMap(new HashMap<>(request.getParameterMap()));
+            HttpSession session = request.getSession(false);
+            this.user = session == null ? null : (User) session.getAttribute("currentUser");
+            // inline jobs own the response from the start
+            if (context == null) {
+                claimed.set(true);
+            }
+        }
+
+        /**
+         * The live request; only after a successful claim(), or to read a
+         * request body.
+         */
+        HttpServletRequest getRequest() {
+            return request;
+        }
+
+        String getParameter(String name) {
+            String[] values = parameters.get(name);
+            return values == null || values.length == 0 ? null : values[0];
+        }
+
+        Map<String, String[]> getParameterMap() {
+            return parameters;
+        }
+
+        /**
+         * The session's currentUser when the request arrived, or null.
+         */
+        User getUser() {
+            return user;
+        }
+
+        HttpServletResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * Takes ownership of the response; false once the request has timed
+         * out or been abandoned.
+         */
+        boolean claim() {
+            return context == null || claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Hands the request to a JSP or servlet to finish, in place of
+         * RequestDispatcher.forward.
+         */
+        void dispatch(String path) throws Exception {
+            if (context == null) {
+                request.getRequestDispatcher(path).forward(request, response);
+                return;
+            }
+            dispatched = true;
+            context.dispatch(path);
+        }
+
+        /**
+         * Ends this run without completing the request and runs next back on
+         * the job's lane once the stage completes, so the lane thread is not
+         * held while it waits. The job keeps its lane permit until then. An
+         * inline job has no lane to go back to and waits for the stage.
+         */
+        <T> void resumeAfter(CompletionStage<T> stage, Continuation<T> next) throws Exception {
+            if (context == null) {
+                T value = null;
+                Throwable failure = null;
+                try {
+                    value = stage.toCompletableFuture().get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause();
+                }
+                next.run(this, value, failure);
+                return;
+            }
+            suspended = true;
+            resumeGate.set(2);
+            stage.whenComplete((value, failure) -> {
+                work = job -> next.run(job, value, failure);
+                resumeWhenReady();
+            });
+        }
+
+        private void resumeWhenReady() {
+            if (resumeGate.decrementAndGet() != 0) {
+                return;
+            }
+            try {
+                lane.pool.execute(this);
+            } catch (RejectedExecutionException e) {
+                logger.error("RequestExecutors " + lane.name + " could not resume: " + e.getMessage());
+                lane.permits.release();
+                if (claim()) {
+                    writeError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server shutting down");
+                }
+                complete();
+            }
+        }
+
+        @Override
+        public void run() {
+            suspended = false;
+            try {
+                synchronized (this) {
+                    if (cancelled || claimed.get()) {
+                        return;
+                    }
+                    runner = Thread.currentThread();
+                }
+                work.run(this);
+            } catch (Exception e) {
+                logger.error("RequestExecutors " + lane.name + " work failed: " + e.getMessage());
+                e.printStackTrace();
+                if (claim()) {
+                    writeError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal error");
+                }
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                // drop an interrupt the work never observed so it cannot reach the next job
+                Thread.interrupted();
+                if (suspended) {
+                    resumeWhenReady();
+                } else {
+                    lane.permits.release();
+                    if (!dispatched) {
+                        complete();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            if (priority != other.priority) {
+                return Integer.compare(priority, other.priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            lane.timedOut.incrementAndGet();
+            logger.warn("RequestExecutors " + lane.name + " request timed out: " + request.getRequestURI());
+            if (claim()) {
+                writeError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out");
+            }
+            cancel();
+            complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            logger.warn("RequestExecutors " + lane.name + " client went away: " + request.getRequestURI());
+            claim();
+            cancel();
+            complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void cancel() {
+            if (lane.pool.remove(this)) {
+                lane.permits.release();
+                return;
+            }
+            synchronized (this) {
+                cancelled = true;
+                // only while the thread is still running this job
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+        }
+
+        private void writeError(int status, String message) {
+            try {
+                errors.write(response, status, message);
+            } catch (Exception e) {
+                logger.error("RequestExecutors could not write error response: " + e.getMessage());
+            }
+        }
+
+        private void complete() {
+            try {
+                context.complete();
+            } catch (IllegalStateException e) {
+                // already completed by the timeout or error path
+            }
+        }
+    }
+}
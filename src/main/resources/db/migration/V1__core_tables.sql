@@ -0,0 +1,72 @@
+-- Tables the services query that the original bootstrap script never created.
+
+CREATE TABLE IF NOT EXISTS users (
+  `id` varchar(100) NOT NULL PRIMARY KEY,
+  `fullname` varchar(4000) DEFAULT NULL,
+  `password` varchar(4000) DEFAULT NULL,
+  `email` varchar(4000) DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+ALTER TABLE users ADD COLUMN `department` varchar(100) DEFAULT NULL;
+
+CREATE TABLE IF NOT EXISTS work_hours (
+  `id` INT NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  `enter` timestamp NULL DEFAULT NULL,
+  `exit` timestamp NULL DEFAULT NULL,
+  `user` varchar(45) DEFAULT NULL,
+  KEY `idx_work_hours_user_id` (`user`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS projects (
+  `project_id` INT NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  `project_name` varchar(255) NOT NULL,
+  `client_name` varchar(255) DEFAULT NULL,
+  `description` varchar(4000) DEFAULT NULL,
+  `hourly_rate` DECIMAL(10,2) NOT NULL DEFAULT 0,
+  `budget_hours` DECIMAL(10,2) NOT NULL DEFAULT 0,
+  `status` varchar(20) DEFAULT 'ACTIVE',
+  `project_manager` varchar(100) DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS time_entries (
+  `entry_id` INT NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  `user_id` varchar(100) NOT NULL,
+  `project_id` INT NOT NULL,
+  `start_time` DATETIME NOT NULL,
+  `end_time` DATETIME DEFAULT NULL,
+  `hours_worked` DECIMAL(8,2) NOT NULL DEFAULT 0,
+  `is_billable` BOOLEAN NOT NULL DEFAULT FALSE,
+  `description` varchar(1000) DEFAULT NULL,
+  `entry_type` varchar(20) DEFAULT 'REGULAR',
+  `created_at` timestamp NULL DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS leave_requests (
+  `leave_id` INT NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  `user_id` varchar(100) NOT NULL,
+  `leave_type` varchar(20) NOT NULL,
+  `start_date` DATETIME NOT NULL,
+  `end_date` DATETIME NOT NULL,
+  `total_days` DECIMAL(5,1) NOT NULL DEFAULT 0,
+  `status` varchar(20) NOT NULL DEFAULT 'PENDING',
+  `reason` varchar(1000) DEFAULT NULL,
+  `approver_id` varchar(100) DEFAULT NULL,
+  `approver_comments` varchar(1000) DEFAULT NULL,
+  `requested_at` timestamp NULL DEFAULT NULL,
+  `reviewed_at` timestamp NULL DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS timesheet_approvals (
+  `approval_id` INT NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  `user_id` varchar(100) NOT NULL,
+  `approver_id` varchar(100) DEFAULT NULL,
+  `week_start_date` DATETIME NOT NULL,
+  `week_end_date` DATETIME NOT NULL,
+  `status` varchar(20) NOT NULL DEFAULT 'PENDING',
+  `approver_comments` varchar(1000) DEFAULT NULL,
+  `submitted_at` timestamp NULL DEFAULT NULL,
+  `reviewed_at` timestamp NULL DEFAULT NULL,
+  `total_hours` DECIMAL(8,2) NOT NULL DEFAULT 0,
+  `billable_hours` DECIMAL(8,2) NOT NULL DEFAULT 0,
+  `non_billable_hours` DECIMAL(8,2) NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,20 @@
+-- Covering indexes for the report access paths. Each one leads with the
+-- equality column, then the start_time range, then the columns the reports
+-- aggregate, so the queries never touch the clustered rows.
+
+-- Per-user reports: overtime, weekly/monthly, utilization, timesheet totals
+CREATE INDEX idx_te_user_start ON time_entries (user_id, start_time, hours_worked, is_billable, project_id);
+
+-- Per-project reports: budget, milestones, billing export, contribution
+CREATE INDEX idx_te_project_start ON time_entries (project_id, start_time, hours_worked, is_billable, user_id);
+
+-- Company-wide date range reports: team summary, productivity, payroll
+CREATE INDEX idx_te_start ON time_entries (start_time, user_id, project_id, hours_worked, is_billable);
+
+CREATE INDEX idx_leave_user_status ON leave_requests (user_id, status, start_date, end_date, total_days);
+
+CREATE INDEX idx_leave_status_requested ON leave_requests (status, requested_at);
+
+CREATE INDEX idx_ts_user_week ON timesheet_approvals (user_id, week_start_date);
+
+CREATE INDEX idx_ts_status ON timesheet_approvals (status);
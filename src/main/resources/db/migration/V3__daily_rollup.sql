@@ -0,0 +1,86 @@
+-- Per user, project and day totals of time_entries, kept current by triggers
+-- so reports can sum days instead of individual entries.
+
+CREATE TABLE IF NOT EXISTS time_entry_daily_rollup (
+  `user_id` varchar(100) NOT NULL,
+  `project_id` INT NOT NULL,
+  `work_date` DATE NOT NULL,
+  `total_hours` DECIMAL(12,2) NOT NULL DEFAULT 0,
+  `billable_hours` DECIMAL(12,2) NOT NULL DEFAULT 0,
+  `entry_count` INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (`user_id`, `work_date`, `project_id`),
+  KEY `idx_rollup_date` (`work_date`, `user_id`, `project_id`, `total_hours`, `billable_hours`, `entry_count`),
+  KEY `idx_rollup_project_date` (`project_id`, `work_date`, `total_hours`, `billable_hours`, `entry_count`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+DROP TRIGGER IF EXISTS trg_time_entries_rollup_insert;
+
+DROP TRIGGER IF EXISTS trg_time_entries_rollup_update;
+
+DROP TRIGGER IF EXISTS trg_time_entries_rollup_delete;
+
+DELIMITER $$
+
+CREATE TRIGGER trg_time_entries_rollup_insert AFTER INSERT ON time_entries
+FOR EACH ROW
+BEGIN
+  INSERT INTO time_entry_daily_rollup (user_id, project_id, work_date, total_hours, billable_hours, entry_count)
+  VALUES (NEW.user_id, NEW.project_id, DATE(NEW.start_time), NEW.hours_worked,
+          IF(NEW.is_billable, NEW.hours_worked, 0), 1)
+  ON DUPLICATE KEY UPDATE
+    total_hours = total_hours + VALUES(total_hours),
+    billable_hours = billable_hours + VALUES(billable_hours),
+    entry_count = entry_count + 1;
+END$$
+
+CREATE TRIGGER trg_time_entries_rollup_update AFTER UPDATE ON time_entries
+FOR EACH ROW
+BEGIN
+  UPDATE time_entry_daily_rollup
+  SET total_hours = total_hours - OLD.hours_worked,
+      billable_hours = billable_hours - IF(OLD.is_billable, OLD.hours_worked, 0),
+      entry_count = entry_count - 1
+  WHERE user_id = OLD.user_id AND project_id = OLD.project_id AND work_date = DATE(OLD.start_time);
+
+  DELETE FROM time_entry_daily_rollup
+  WHERE user_id = OLD.user_id AND project_id = OLD.project_id AND work_date = DATE(OLD.start_time)
+    AND entry_count <= 0;
+
+  INSERT INTO time_entry_daily_rollup (user_id, project_id, work_date, total_hours, billable_hours, entry_count)
+  VALUES (NEW.user_id, NEW.project_id, DATE(NEW.start_time), NEW.hours_worked,
+          IF(NEW.is_billable, NEW.hours_worked, 0), 1)
+  ON DUPLICATE KEY UPDATE
+    total_hours = total_hours + VALUES(total_hours),
+    billable_hours = billable_hours + VALUES(billable_hours),
+    entry_count = entry_count + 1;
+END$$
+
+CREATE TRIGGER trg_time_entries_rollup_delete AFTER DELETE ON time_entries
+FOR EACH ROW
+BEGIN
+  UPDATE time_entry_daily_rollup
+  SET total_hours = total_hours - OLD.hours_worked,
+      billable_hours = billable_hours - IF(OLD.is_billable, OLD.hours_worked, 0),
+      entry_count = entry_count - 1
+  WHERE user_id = OLD.user_id AND project_id = OLD.project_id AND work_date = DATE(OLD.start_time);
+
+  DELETE FROM time_entry_daily_rollup
+  WHERE user_id = OLD.user_id AND project_id = OLD.project_id AND work_date = DATE(OLD.start_time)
+    AND entry_count <= 0;
+END$$
+
+DELIMITER ;
+
+-- The triggers are already live, so an entry written during the backfill may
+-- have created its day row; the backfill totals replace it.
+DELETE FROM time_entry_daily_rollup;
+
+INSERT INTO time_entry_daily_rollup (user_id, project_id, work_date, total_hours, billable_hours, entry_count)
+SELECT user_id, project_id, DATE(start_time), SUM(hours_worked),
+       SUM(CASE WHEN is_billable = true THEN hours_worked ELSE 0 END), COUNT(*)
+FROM time_entries
+GROUP BY user_id, project_id, DATE(start_time)
+ON DUPLICATE KEY UPDATE
+  total_hours = VALUES(total_hours),
+  billable_hours = VALUES(billable_hours),
+  entry_count = VALUES(entry_count);
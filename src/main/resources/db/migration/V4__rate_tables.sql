@@ -0,0 +1,17 @@
+-- Effective-dated pay and bill rates. A row applies from effective_from until
+-- the next row for the same key; dates before the first row fall back to the
+-- default pay rate or to projects.hourly_rate.
+
+CREATE TABLE IF NOT EXISTS user_pay_rates (
+  `user_id` varchar(100) NOT NULL,
+  `effective_from` DATE NOT NULL,
+  `hourly_rate` DECIMAL(10,2) NOT NULL,
+  PRIMARY KEY (`user_id`, `effective_from`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS project_bill_rates (
+  `project_id` INT NOT NULL,
+  `effective_from` DATE NOT NULL,
+  `hourly_rate` DECIMAL(10,2) NOT NULL,
+  PRIMARY KEY (`project_id`, `effective_from`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,19 @@
+-- Working calendars per region: which weekdays are off, hours in a working
+-- day, and public holidays. Users without a region use calendar.defaultRegion.
+
+CREATE TABLE IF NOT EXISTS calendar_regions (
+  `region` varchar(50) NOT NULL PRIMARY KEY,
+  `weekend_days` varchar(100) NOT NULL DEFAULT 'SATURDAY,SUNDAY',
+  `hours_per_day` DECIMAL(4,2) NOT NULL DEFAULT 8.00
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS calendar_holidays (
+  `region` varchar(50) NOT NULL,
+  `holiday_date` DATE NOT NULL,
+  `name` varchar(255) DEFAULT NULL,
+  PRIMARY KEY (`region`, `holiday_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+ALTER TABLE users ADD COLUMN `region` varchar(50) DEFAULT NULL;
+
+INSERT IGNORE INTO calendar_regions (region, weekend_days, hours_per_day) VALUES ('DEFAULT', 'SATURDAY,SUNDAY', 8.00);
@@ -0,0 +1,22 @@
+-- Stored generated calendar columns, so reports filter and group on indexed
+-- columns instead of wrapping start_time or work_date in DATE(), WEEK() or
+-- MONTH(). work_week is the ISO year and week as yyyyww (YEARWEEK mode 3,
+-- Monday weeks) and work_month the year and month as yyyymm, so neither
+-- repeats across years. Adding stored columns rebuilds time_entries.
+
+ALTER TABLE time_entries
+  ADD COLUMN `work_date` DATE AS (DATE(start_time)) STORED,
+  ADD COLUMN `work_week` INT AS (YEARWEEK(start_time, 3)) STORED,
+  ADD COLUMN `work_month` INT AS (EXTRACT(YEAR_MONTH FROM start_time)) STORED;
+
+-- Per-user daily totals: daily overtime
+CREATE INDEX idx_te_user_work_date ON time_entries (user_id, work_date, hours_worked);
+
+ALTER TABLE time_entry_daily_rollup
+  ADD COLUMN `work_week` INT AS (YEARWEEK(work_date, 3)) STORED,
+  ADD COLUMN `work_month` INT AS (EXTRACT(YEAR_MONTH FROM work_date)) STORED;
+
+-- Per-user weekly breakdown and monthly utilization trend
+CREATE INDEX idx_rollup_user_week ON time_entry_daily_rollup (user_id, work_week, work_date, total_hours);
+
+CREATE INDEX idx_rollup_user_month ON time_entry_daily_rollup (user_id, work_month, total_hours, billable_hours);
@@ -6,6 +6,9 @@ CREATE DATABASE `reporting_system` /*!40100 DEFAULT CHARACTER SET utf8mb4 COLLAT
 
 use reporting_system;
 
+/* projects, time_entries, leave_requests, timesheet_approvals and their indexes
+   are created by the versioned scripts in db/migration when the webapp starts */
+
 SELECT now();
 
 CREATE TABLE `users` (
@@ -20,7 +23,8 @@ CREATE TABLE work_hours (
   `id` INT not NULL PRIMARY KEY AUTO_INCREMENT,
   `enter` timestamp DEFAULT NULL,
   `exit` timestamp DEFAULT NULL,
-  `user` varchar(45) DEFAULT NULL
+  `user` varchar(45) DEFAULT NULL,
+  KEY `idx_work_hours_user_id` (`user`, `id`)
  ) AUTO_INCREMENT=1 ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
 
@@ -34,11 +38,11 @@ insert into users values(3,'adi arviv' , '3', 'adi.arviv@gmail.com');
 select * from users;
 
 
-INSERT INTO `reporting_system`.`work_hours` VALUES ( 0,  now()  , now() , 'asaf' );
+INSERT INTO `reporting_system`.`work_hours` VALUES ( 0,  now()  , now() , 'asaf arviv' );
 
 INSERT INTO `reporting_system`.`work_hours` VALUES (0, now()  , now() , 'mordechai1' );
 
-INSERT INTO `reporting_system`.`work_hours` VALUES ( 0,now()  , now() , 'asaf' );
+INSERT INTO `reporting_system`.`work_hours` VALUES ( 0,now()  , now() , 'asaf arviv' );
 
 SELECT * FROM reporting_system.work_hours;
 
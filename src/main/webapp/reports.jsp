@@ -29,6 +29,16 @@
         </c:forEach>
         <tbody/>
     </table>
+    <c:if test="${nextBefore != null}">
+        <div style="text-align:center">
+            <c:url var="olderReports" value="mainServlet">
+                <c:param name="act" value="view"/>
+                <c:param name="before" value="${nextBefore}"/>
+                <c:param name="pageSize" value="${param.pageSize}"/>
+            </c:url>
+            <a href="${olderReports}">Older Reports</a>
+        </div>
+    </c:if>
     <div style="text-align:center">
         <a style="margin:auto; text-align:center; display:block;" href="users.jsp">Back To Users</a>
     </div>
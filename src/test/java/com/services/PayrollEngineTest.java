@@ -0,0 +1,97 @@
+package com.services;
+
+import com.beans.PayrollLine;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PayrollEngineTest {
+
+    private static final double DELTA = 1e-9;
+
+    // 2024-01-01 was a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void dailyOvertimeIsHoursPastEightEachDay() {
+        PayrollLine line = pay(RateTableService.Rates.flat(20), MONDAY, 10, 10, 10, 10, 10);
+
+        assertEquals(50, line.getTotalHours(), DELTA);
+        assertEquals(40, line.getRegularHours(), DELTA);
+        assertEquals(10, line.getDailyOvertimeHours(), DELTA);
+        assertEquals(0, line.getWeeklyOvertimeHours(), DELTA);
+        assertEquals(40 * 20, line.getRegularPay(), DELTA);
+        assertEquals(10 * 20 * 1.5, line.getOvertimePay(), DELTA);
+    }
+
+    @Test
+    void weeklyOvertimeResetsOnMonday() {
+        // Tuesday through Sunday is one week: 48 regular-capped hours, 8 over 40
+        PayrollLine line = pay(RateTableService.Rates.flat(20), MONDAY.plusDays(1), 8, 8, 8, 8, 8, 8, 8);
+
+        assertEquals(56, line.getTotalHours(), DELTA);
+        assertEquals(48, line.getRegularHours(), DELTA);
+        assertEquals(0, line.getDailyOvertimeHours(), DELTA);
+        assertEquals(8, line.getWeeklyOvertimeHours(), DELTA);
+        assertEquals(7, line.getDaysWorked());
+    }
+
+    @Test
+    void dailyHoursDoNotCountTowardsTheWeeklyThreshold() {
+        // 12-hour days reach 40 regular hours only on Friday; Saturday is all weekly overtime
+        PayrollLine line = pay(RateTableService.Rates.flat(10), MONDAY, 12, 12, 12, 12, 12, 5);
+
+        assertEquals(40, line.getRegularHours(), DELTA);
+        assertEquals(20, line.getDailyOvertimeHours(), DELTA);
+        assertEquals(5, line.getWeeklyOvertimeHours(), DELTA);
+        assertEquals(25, line.getOvertimeHours(), DELTA);
+    }
+
+    @Test
+    void eachDayIsPricedAtItsOwnRate() {
+        int change = (int) MONDAY.plusDays(3).toEpochDay();
+        RateTableService.Rates rates = new RateTableService.Rates(20, new int[] {change}, new double[] {30});
+
+        PayrollLine line = pay(rates, MONDAY, 9, 9, 9, 9, 9);
+
+        assertEquals(3 * 8 * 20 + 2 * 8 * 30, line.getRegularPay(), DELTA);
+        assertEquals((3 * 20 + 2 * 30) * 1.5, line.getOvertimePay(), DELTA);
+    }
+
+    @Test
+    void weeklyOvertimeUsesTheRateOfTheDayItFallsOn() {
+        int change = (int) MONDAY.plusDays(7).toEpochDay();
+        RateTableService.Rates rates = new RateTableService.Rates(20, new int[] {change}, new double[] {40});
+
+        // Mon-Fri 8h, Sat 4h over the weekly threshold, then Monday at the new rate
+        LocalDate[] days = new LocalDate[] {MONDAY, MONDAY.plusDays(1), MONDAY.plusDays(2), MONDAY.plusDays(3),
+                MONDAY.plusDays(4), MONDAY.plusDays(5), MONDAY.plusDays(7)};
+        double[] hours = {8, 8, 8, 8, 8, 4, 8};
+        PayrollLine line = pay(rates, days, hours);
+
+        assertEquals(48, line.getRegularHours(), DELTA);
+        assertEquals(4, line.getWeeklyOvertimeHours(), DELTA);
+        assertEquals(40 * 20 + 8 * 40, line.getRegularPay(), DELTA);
+        assertEquals(4 * 20 * 1.5, line.getOvertimePay(), DELTA);
+    }
+
+    private static PayrollLine pay(RateTableService.Rates rates, LocalDate first, double... hours) {
+        LocalDate[] days = new LocalDate[hours.length];
+        for (int i = 0; i < hours.length; i++) {
+            days[i] = first.plusDays(i);
+        }
+        return pay(rates, days, hours);
+    }
+
+    private static PayrollLine pay(RateTableService.Rates rates, LocalDate[] days, double[] hours) {
+        int[] epochDays = new int[days.length];
+        for (int i = 0; i < days.length; i++) {
+            epochDays[i] = (int) days[i].toEpochDay();
+        }
+        PayrollLine line = new PayrollLine("u1", "User One", "u1@example.com");
+        PayrollEngine.computePay(line, epochDays, hours, days.length, rates);
+        return line;
+    }
+}
@@ -0,0 +1,109 @@
+package com.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProjectBurnIndexTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void emptyProjectHasNoHours() {
+        ProjectBurnIndex.ProjectBurn burn = new ProjectBurnIndex.ProjectBurn();
+
+        assertEquals(0, burn.prefix(1000), DELTA);
+        assertEquals(0, burn.daily(1000), DELTA);
+    }
+
+    @Test
+    void prefixStartsAtTheFirstDay() {
+        ProjectBurnIndex.ProjectBurn burn = new ProjectBurnIndex.ProjectBurn();
+        burn.add(1000, 8);
+        burn.add(1001, 4);
+        burn.add(1000, 2);
+
+        assertEquals(0, burn.prefix(999), DELTA);
+        assertEquals(10, burn.prefix(1000), DELTA);
+        assertEquals(14, burn.prefix(1001), DELTA);
+        assertEquals(14, burn.prefix(5000), DELTA);
+        assertEquals(10, burn.daily(1000), DELTA);
+    }
+
+    @Test
+    void growsAfterTheSpan() {
+        ProjectBurnIndex.ProjectBurn burn = new ProjectBurnIndex.ProjectBurn();
+        burn.add(1000, 8);
+        // well past the initial 64 days
+        burn.add(1200, 5);
+
+        assertEquals(8, burn.prefix(1199), DELTA);
+        assertEquals(13, burn.prefix(1200), DELTA);
+        assertEquals(5, burn.daily(1200), DELTA);
+    }
+
+    @Test
+    void growsBeforeBaseDay() {
+        ProjectBurnIndex.ProjectBurn burn = new ProjectBurnIndex.ProjectBurn();
+        burn.add(1000, 8);
+        burn.add(1063, 1);
+        burn.add(900, 3);
+
+        assertEquals(0, burn.prefix(899), DELTA);
+        assertEquals(3, burn.prefix(900), DELTA);
+        assertEquals(3, burn.prefix(999), DELTA);
+        assertEquals(11, burn.prefix(1000), DELTA);
+        assertEquals(12, burn.prefix(1063), DELTA);
+        assertEquals(3, burn.daily(900), DELTA);
+        assertEquals(8, burn.daily(1000), DELTA);
+    }
+
+    @Test
+    void visitsOnlyPopulatedDaysInTheRange() {
+        ProjectBurnIndex.ProjectBurn burn = new ProjectBurnIndex.ProjectBurn();
+        burn.add(1000, 8);
+        burn.add(1003, 4);
+        burn.add(1010, 2);
+        burn.add(990, 1);
+
+        List<Integer> days = new ArrayList<>();
+        List<Double> hours = new ArrayList<>();
+        burn.forEachDay(995, 1005, (day, dayHours) -> {
+            days.add(day);
+            hours.add(dayHours);
+        });
+        assertEquals(Arrays.asList(1000, 1003), days);
+        assertEquals(Arrays.asList(8.0, 4.0), hours);
+
+        days.clear();
+        // wider than the project's span on both sides
+        burn.forEachDay(0, 100000, (day, dayHours) -> days.add(day));
+        assertEquals(Arrays.asList(990, 1000, 1003, 1010), days);
+    }
+
+    @Test
+    void matchesRunningSumsInAnyInsertOrder() {
+        Random random = new Random(42);
+        int first = 5000;
+        double[] expected = new double[700];
+        ProjectBurnIndex.ProjectBurn burn = new ProjectBurnIndex.ProjectBurn();
+        for (int i = 0; i < 2000; i++) {
+            int offset = random.nextInt(expected.length);
+            double hours = random.nextInt(33) / 4.0;
+            expected[offset] += hours;
+            burn.add(first + offset, hours);
+        }
+
+        double sum = 0;
+        for (int offset = 0; offset < expected.length; offset++) {
+            sum += expected[offset];
+            assertEquals(sum, burn.prefix(first + offset), 1e-6);
+            assertEquals(expected[offset], burn.daily(first + offset), DELTA);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateTableServiceTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final RateTableService.Rates rates =
+            new RateTableService.Rates(25, new int[] {100, 200, 300}, new double[] {30, 40, 50});
+
+    @Test
+    void beforeTheFirstRowUsesTheBaseRate() {
+        assertEquals(25, rates.rateOn(99), DELTA);
+        assertEquals(25, rates.rateOn(Integer.MIN_VALUE), DELTA);
+    }
+
+    @Test
+    void aRowTakesEffectOnItsOwnDate() {
+        assertEquals(30, rates.rateOn(100), DELTA);
+        assertEquals(40, rates.rateOn(200), DELTA);
+        assertEquals(50, rates.rateOn(300), DELTA);
+    }
+
+    @Test
+    void betweenRowsUsesTheLatestEarlierRow() {
+        assertEquals(30, rates.rateOn(101), DELTA);
+        assertEquals(30, rates.rateOn(199), DELTA);
+        assertEquals(40, rates.rateOn(299), DELTA);
+        assertEquals(50, rates.rateOn(Integer.MAX_VALUE), DELTA);
+    }
+
+    @Test
+    void dateOverloadMatchesEpochDay() {
+        Date date = Date.valueOf("2024-03-15");
+        int day = (int) date.toLocalDate().toEpochDay();
+        RateTableService.Rates dated = new RateTableService.Rates(10, new int[] {day}, new double[] {12});
+
+        assertEquals(12, dated.rateOn(date), DELTA);
+        assertEquals(10, dated.rateOn(Date.valueOf("2024-03-14")), DELTA);
+    }
+
+    @Test
+    void flatRatesHaveNoHistory() {
+        RateTableService.Rates flat = RateTableService.Rates.flat(18);
+
+        assertEquals(18, flat.rateOn(0), DELTA);
+        assertEquals(18, flat.rateOn(20000), DELTA);
+        assertTrue(flat.toList().isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+package com.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WorkingCalendarServiceTest {
+
+    private static final double DELTA = 1e-9;
+
+    // 2024-01-01 was a Monday
+    private static final int MONDAY = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+    private static final boolean[] SATURDAY_SUNDAY = {false, false, false, false, false, true, true};
+
+    private final WorkingCalendarService.RegionCalendar calendar = new WorkingCalendarService.RegionCalendar(
+            MONDAY, MONDAY + 27, SATURDAY_SUNDAY, 8.0, Collections.singleton(MONDAY + 9));
+
+    @Test
+    void weekendsAndHolidaysHaveNoHours() {
+        assertEquals(8, calendar.hoursOn(MONDAY), DELTA);
+        assertEquals(0, calendar.hoursOn(MONDAY + 5), DELTA);
+        assertEquals(0, calendar.hoursOn(MONDAY + 6), DELTA);
+        assertEquals(0, calendar.hoursOn(MONDAY + 9), DELTA);
+    }
+
+    @Test
+    void rangesAreInclusiveOfBothDays() {
+        assertEquals(40, calendar.hoursBetween(MONDAY, MONDAY + 6), DELTA);
+        assertEquals(32, calendar.hoursBetween(MONDAY + 7, MONDAY + 13), DELTA);
+        assertEquals(8, calendar.hoursBetween(MONDAY, MONDAY), DELTA);
+        assertEquals(0, calendar.hoursBetween(MONDAY + 1, MONDAY), DELTA);
+    }
+
+    @Test
+    void rangesOutsideThePrefixWindowWalkTheDays() {
+        // the week before the window and the week after it
+        assertEquals(40, calendar.hoursBetween(MONDAY - 7, MONDAY - 1), DELTA);
+        assertEquals(40, calendar.hoursBetween(MONDAY + 28, MONDAY + 34), DELTA);
+        // straddling each edge
+        assertEquals(8 + 8, calendar.hoursBetween(MONDAY - 3, MONDAY), DELTA);
+        assertEquals(8 + 8, calendar.hoursBetween(MONDAY + 25, MONDAY + 28), DELTA);
+        // covering the whole window and more on both sides
+        assertEquals(40 * 6 - 8, calendar.hoursBetween(MONDAY - 7, MONDAY + 34), DELTA);
+    }
+
+    @Test
+    void matchesDayByDaySums() {
+        Set<Integer> holidays = new HashSet<>();
+        holidays.add(MONDAY + 2);
+        holidays.add(MONDAY + 40);
+        holidays.add(MONDAY - 10);
+        boolean[] fridaySaturday = {false, false, false, false, true, true, false};
+        WorkingCalendarService.RegionCalendar region = new WorkingCalendarService.RegionCalendar(
+                MONDAY, MONDAY + 60, fridaySaturday, 7.5, holidays);
+
+        for (int from = MONDAY - 20; from <= MONDAY + 80; from += 3) {
+            for (int to = from - 1; to <= MONDAY + 80; to += 5) {
+                double expected = 0;
+                for (int day = from; day <= to; day++) {
+                    expected += region.hoursOn(day);
+                }
+                assertEquals(expected, region.hoursBetween(from, to), 1e-6, "from " + from + " to " + to);
+            }
+        }
+    }
+}
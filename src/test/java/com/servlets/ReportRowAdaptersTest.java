@@ -0,0 +1,40 @@
+package com.servlets;
+
+import com.beans.ContributionRow;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportRowAdaptersTest {
+
+    @Test
+    void nonFiniteDoublesAreWrittenAsNull() {
+        ContributionRow row = new ContributionRow("u1", "User One", Double.POSITIVE_INFINITY, 4, 3);
+        row.setContributionPercentage(Double.NaN);
+
+        String json = JsonSupport.GSON.toJson(row);
+
+        assertFalse(json.contains("NaN"), json);
+        assertFalse(json.contains("Infinity"), json);
+        JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        assertTrue(object.get("contributionPercentage").isJsonNull());
+        assertTrue(object.get("totalHours").isJsonNull());
+        assertEquals(4, object.get("billableHours").getAsDouble(), 0);
+        assertEquals(3, object.get("entryCount").getAsInt());
+    }
+
+    @Test
+    void finiteDoublesAreWrittenAsNumbers() {
+        ContributionRow row = new ContributionRow("u1", "User One", 10, 4, 3);
+        row.setContributionPercentage(25);
+
+        JsonObject object = JsonParser.parseString(JsonSupport.GSON.toJson(row)).getAsJsonObject();
+
+        assertEquals(10, object.get("totalHours").getAsDouble(), 0);
+        assertEquals(25, object.get("contributionPercentage").getAsDouble(), 0);
+    }
+}